@@ -0,0 +1,78 @@
+package simple;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+// Checks that a while loop over ints and booleans allocates nothing per
+// iteration, in the Interpreter and in the node tree: the bytes a loop of
+// 2n iterations allocates may exceed those of n iterations only by a
+// little, whatever a first run allocated (node trees, tier-ups).
+// Exits with status 1 if not.
+//
+//   java -cp "bin:lib/*" simple.AllocationCheck
+public class AllocationCheck {
+    private static final int ITERATIONS = 1_000_000;
+    private static final long SLACK = 16 * 1024; // bytes; e.g. a late tier-up
+
+    private final TypeChecker typeChecker = new TypeChecker();
+    private final Resolver resolver = new Resolver();
+    private final Interpreter interpreter = new Interpreter();
+    private final TreeInterpreter tree = new TreeInterpreter();
+    private final Frame env = new Frame();
+    private final boolean useTree;
+
+    private AllocationCheck(boolean useTree) {
+        this.useTree = useTree;
+    }
+
+    public static void main(String[] args) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        boolean ok = true;
+        for (boolean useTree : new boolean[] { false, true }) {
+            AllocationCheck check = new AllocationCheck(useTree);
+            check.run("int i");
+            check.run("int s");
+            check.run("boolean b");
+            check.run("func sum(int n) { int k; int t; boolean odd; k := 0; t := 0; odd := false; "
+                    + "while (k < n) { t := t + k * 3 - 1; odd := odd = false; k := k + 1; } return t; }");
+            String[] loops = {
+                "while (i < %d) { s := s + i * 3 - 1; b := (i = 7) = b; i := i + 1; }",
+                "s := sum(%d);",
+            };
+            for (String loop : loops) {
+                check.run("i := 0;");
+                check.run(String.format(loop, ITERATIONS)); // warm-up
+                long[] bytes = new long[2];
+                for (int k = 0; k < 2; k++) {
+                    check.run("i := 0;");
+                    AstNode unit = check.prepare(String.format(loop, ITERATIONS * (k + 1)));
+                    long before = threads.getCurrentThreadAllocatedBytes();
+                    check.execute(unit);
+                    bytes[k] = threads.getCurrentThreadAllocatedBytes() - before;
+                }
+                boolean flat = bytes[1] - bytes[0] <= SLACK;
+                ok &= flat;
+                System.out.printf("%-11s %-9s %d iterations: %d bytes, %d iterations: %d bytes %s%n",
+                        useTree ? "tree" : "interpreter", loop.contains("sum") ? "function" : "top-level",
+                        ITERATIONS, bytes[0], 2 * ITERATIONS, bytes[1], flat ? "OK" : "ALLOCATES");
+            }
+        }
+        if (!ok) System.exit(1);
+    }
+
+    private AstNode prepare(String source) throws Exception {
+        AstNode unit = (AstNode) new parser(new SimpleLexer(new StringReader(source))).parse().value;
+        typeChecker.check(unit);
+        resolver.resolve(unit);
+        return unit;
+    }
+
+    private void execute(AstNode unit) {
+        if (useTree) tree.evaluate(unit, env);
+        else interpreter.evaluate(unit, env);
+    }
+
+    private void run(String source) throws Exception {
+        execute(prepare(source));
+    }
+}
@@ -0,0 +1,166 @@
+package simple;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Checks that TypeChecker sessions can run on separate threads:
+//  - sessions of REPL units (polymorphic functions, redefinitions and
+//    rejected units) checked on a thread pool give the same transcripts
+//    as when checked one after another;
+//  - units sent from every thread to one shared session are each typed
+//    as on their own;
+//  - whole programs checked concurrently get the same function types.
+// Defaults: 2000 sessions on 8 threads. Exits with status 1 on any
+// difference.
+//
+//   java -cp "bin:lib/*" simple.ConcurrencyStress [sessions] [threads]
+public class ConcurrencyStress {
+    private static final int VARIANTS = 7; // distinct session scripts
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        System.out.println(threads + " threads");
+        try {
+            int failures = sessions(sessions, pool) + sharedSession(sessions, pool) + programs(sessions / 10, pool);
+            System.out.println(failures == 0 ? "OK" : failures + " differences");
+            if (failures != 0) System.exit(1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int sessions(int sessions, ExecutorService pool) throws Exception {
+        String[] expected = new String[VARIANTS];
+        for (int k = 0; k < VARIANTS; k++) expected[k] = transcript(k);
+        List<Future<String>> results = new ArrayList<>();
+        for (int k = 0; k < sessions; k++) {
+            int variant = k % VARIANTS;
+            results.add(pool.submit(() -> transcript(variant)));
+        }
+        int mismatches = 0;
+        for (int k = 0; k < sessions; k++) {
+            if (!results.get(k).get().equals(expected[k % VARIANTS])) mismatches++;
+        }
+        System.out.printf("%d sessions of %d units: %d mismatches%n", sessions, script(0).size(), mismatches);
+        return mismatches;
+    }
+
+    private static int sharedSession(int units, ExecutorService pool) throws Exception {
+        TypeChecker shared = new TypeChecker();
+        shared.check(parse("func id(var x) { return x; }"));
+        List<Future<String>> results = new ArrayList<>();
+        for (int k = 0; k < units; k++) {
+            String unit = k % 2 == 0 ? "id(" + k + ") + 1" : "id(4) && true";
+            results.add(pool.submit(() -> {
+                try {
+                    return String.valueOf(shared.check(parse(unit)));
+                } catch (Exception e) {
+                    return "Error";
+                }
+            }));
+        }
+        int wrong = 0;
+        for (int k = 0; k < units; k++) {
+            if (!results.get(k).get().equals(k % 2 == 0 ? "INTEGER" : "Error")) wrong++;
+        }
+        System.out.printf("%d units to one shared session: %d wrong%n", units, wrong);
+        return wrong;
+    }
+
+    private static int programs(int count, ExecutorService pool) throws Exception {
+        String expected = functionTypes();
+        List<Future<String>> results = new ArrayList<>();
+        for (int k = 0; k < count; k++) results.add(pool.submit(ConcurrencyStress::functionTypes));
+        int differ = 0;
+        for (Future<String> result : results) {
+            if (!result.get().equals(expected)) differ++;
+        }
+        System.out.printf("%d whole programs: %d differ%n", count, differ);
+        return differ;
+    }
+
+    // The checker's answer, or its error, for each unit of a fresh session
+    private static String transcript(int variant) throws Exception {
+        StringBuilder out = new StringBuilder();
+        TypeChecker typeChecker = new TypeChecker();
+        for (String unit : script(variant)) {
+            try {
+                out.append(typeChecker.check(parse(unit))).append('\n');
+            } catch (Exception e) {
+                out.append("Error: ").append(e.getMessage()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static List<String> script(int k) {
+        List<String> units = new ArrayList<>();
+        units.add("var g" + k);
+        units.add("func id(var x) { return x; }");
+        units.add("id(3) + " + k);
+        units.add("id(true) && true");
+        units.add("func f(var n) { if (n < 1) return g" + k + "; return f(n - 1) + id(n); }");
+        units.add("f(" + k + ")");
+        units.add("func h(var b) { return id(b) && !b; }");
+        units.add("id(4) && true"); // rejected
+        units.add("func f(int n) { return n < 3; }"); // rejected: f is used as an int
+        units.add("func f(int n) { if (id(n) < " + k + ") return 1; return f(n - 1) * 2; }");
+        units.add("func k(var a, var b) { return id(a) + b; }");
+        units.add("k");
+        units.add("h(false) || id(false)");
+        for (int i = 0; i < 20; i++) {
+            units.add("func p" + i + "(var x) { return " + (i == 0 ? "x + 1" : "p" + (i - 1) + "(x) * " + i) + "; }");
+        }
+        units.add("func id(var y) { return y; }"); // redefinition: its dependents are checked again
+        units.add("p19");
+        return units;
+    }
+
+    private static String functionTypes() throws Exception {
+        ProgramNode program = program(200);
+        new TypeChecker().checkProgram(program);
+        StringBuilder types = new StringBuilder();
+        for (FuncDef f : program.fns) types.append(f.name).append(": ").append(f.type).append('\n');
+        return types.toString();
+    }
+
+    // n mutually calling functions, some recursive, some polymorphic
+    private static ProgramNode program(int n) throws Exception {
+        List<FuncDef> funcs = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            String source;
+            switch (i % 5) {
+                case 0:
+                    source = "func f" + i + "(var x, int y) { var t; t := x; if (t < y) return t * 2; return y; }";
+                    break;
+                case 1:
+                    source = "func f" + i + "(int n) { if (n < 1) return 0; return f" + (i + 1) + "(n - 1) + f" + (i - 1) + "(n, 3); }";
+                    break;
+                case 2:
+                    source = "func f" + i + "(int n) { if (n < 1) return 1; return f" + (i - 1) + "(n - 1); }";
+                    break;
+                case 3:
+                    source = "func f" + i + "(var b) { int s; s := 0; while (s < 10 && b) { s := s + 1; total := total + s; } return !b || s > 3; }";
+                    break;
+                default:
+                    source = "func f" + i + "(int k) { int j; j := " + random.nextInt(100) + "; if (f" + (i - 1) + "(k = j)) return f" + (i - 4) + "(j, k); return k; }";
+            }
+            funcs.add((FuncDef) parse(source));
+        }
+        List<VarDecl> globals = List.of((VarDecl) parse("int total"), (VarDecl) parse("var shared"));
+        List<Stmt> main = List.of((Stmt) parse("total := f1(3);"), (Stmt) parse("shared := f3(true);"));
+        return new ProgramNode(funcs, globals, main);
+    }
+
+    private static AstNode parse(String source) throws Exception {
+        return (AstNode) new parser(new SimpleLexer(new StringReader(source))).parse().value;
+    }
+}
@@ -0,0 +1,69 @@
+package simple;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Times the statement and expression dispatch of the Interpreter and of
+// BigStep: a top-level loop of blocks, ifs, assignments and mixed int and
+// boolean expressions, and, in BigStep, recursive calls (the Interpreter
+// would tier or memoize a function). Prints the best of the given number
+// of runs (default 15) of each.
+//
+//   java -cp "bin:lib/*" simple.DispatchBench [runs]
+public class DispatchBench {
+    private static final int ITERATIONS = 300_000;
+    private static final String LOOP = "while (i < %d) { if (i / 3 * 3 = i) { s := s + i; } "
+            + "else { b := (s > i) = b; } { t := t + 1; s := s - t / 2; } i := i + 1; }";
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+
+        TypeChecker typeChecker = new TypeChecker();
+        Resolver resolver = new Resolver();
+        Interpreter interpreter = new Interpreter();
+        Frame frame = new Frame();
+        String[] decls = { "int i", "int s", "int t", "boolean b" };
+        for (String decl : decls) interpreter.evaluate(prepare(decl, typeChecker, resolver), frame);
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            interpreter.evaluate(prepare("i := 0;", typeChecker, resolver), frame);
+            AstNode loop = prepare(String.format(LOOP, ITERATIONS), typeChecker, resolver);
+            long start = System.nanoTime();
+            interpreter.evaluate(loop, frame);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        report("interpreter", "loop", best);
+
+        List<FuncDef> funcs = List.of((FuncDef) parse(
+                "func fib(int n) { if (n < 2) return n; else return fib(n - 1) + fib(n - 2); }"));
+        List<VarDecl> globals = new ArrayList<>();
+        for (String decl : decls) globals.add((VarDecl) parse(decl));
+        String[][] mains = { { "loop", String.format(LOOP, ITERATIONS) }, { "fib(22)", "s := fib(22);" } };
+        for (String[] main : mains) {
+            best = Long.MAX_VALUE;
+            for (int r = 0; r < runs; r++) {
+                ProgramNode program = new ProgramNode(funcs, globals, List.of((Stmt) parse(main[1])));
+                long start = System.nanoTime();
+                BigStep.evaluateProgram(program);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            report("bigstep", main[0], best);
+        }
+    }
+
+    private static AstNode parse(String source) throws Exception {
+        return (AstNode) new parser(new SimpleLexer(new StringReader(source))).parse().value;
+    }
+
+    private static AstNode prepare(String source, TypeChecker typeChecker, Resolver resolver) throws Exception {
+        AstNode unit = parse(source);
+        typeChecker.check(unit);
+        resolver.resolve(unit);
+        return unit;
+    }
+
+    private static void report(String engine, String workload, long nanos) {
+        System.out.printf("%-11s %-7s %6.1f ms%n", engine, workload, nanos / 1e6);
+    }
+}
@@ -0,0 +1,121 @@
+package simple;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+
+// Runs REPL scripts through App itself, once per engine and flag set, and
+// checks every run prints what the default engine prints: the types and
+// values of each unit, and the same errors. The scripts cover control
+// flow, calls and tail calls, functions as values, and redefinitions
+// that change the types of the functions using them after those have
+// been optimized and tiered up. Exits with status 1 on any difference.
+//
+//   java -cp "bin:lib/*" simple.EngineDiffCheck
+public class EngineDiffCheck {
+    private static final String[][] FLAGS = {
+        {}, { "--pratt" }, { "--tier-threshold=1" }, { "--tree" }, { "--vm" },
+    };
+
+    private static final String[] SCRIPTS = {
+        String.join("\n",
+            "int a", "int b", "boolean f",
+            "a := 5;", "b := 7;",
+            "if (a < b) a := a + 1; else a := a - 1;", "a",
+            "if (a = 6) f := true;", "f",
+            "while (a > 0) a := a - 2;", "a",
+            "int k",
+            "while (k < 10 && !f) { k := k + 1; if (k = 5) f := true; }", "k",
+            "func g(int x, int y) { int z; z := x * y; z := z - x; if (x = y) return z; else return z + 1; }",
+            "g(3, 4)", "g(4, 4)",
+            "func h(int n) { int t; int i; while (i < n) { t := t + i; i := i + 1; } a := a + t; return t; }",
+            "h(10)", "a",
+            "func cnt(int n) { b := b + 1; if (n < 1) return 0; return cnt(n - 1) + 1; }",
+            "cnt(50)", "b",
+            "func ap(var fn, int x) { return fn(x); }", "ap(h, 4)",
+            "func ev(int n) { if (n = 0) return true; else return od(n - 1); }",
+            "func od(int n) { if (n = 0) return false; else return ev(n - 1); }",
+            "ev(10)",
+            "func bad(int x) { if (x > 100) return 1; }", "bad(3)",
+            "a := 0;", "while (a < b) { a := a + 1; }", "a"),
+        // A callee's return type changes under a caller that keeps its own
+        // type, inlined (g) and not (h, two statements); an inlined callee
+        // (sq) redefined with the same type
+        String.join("\n",
+            "func g(int x) { return x; }",
+            "func f() { return g(1) = g(2); }",
+            "f()",
+            "func g(int x) { return x > 0; }",
+            "f()",
+            "func h(int x) { int y; y := x; return y; }",
+            "func k() { return h(1 + 0) = h(2); }",
+            "k()",
+            "func h(int x) { int y; y := x; return y > 1; }",
+            "k()",
+            "func sq(int x) { return x * x; }",
+            "func u(int n) { return sq(n) + 1; }",
+            "u(3)", "sq(3)",
+            "func sq(int x) { return x + x; }",
+            "u(3)", "sq(3)"),
+        // Hot callers retyped along a chain, then a cycle through a redefinition
+        String.join("\n",
+            "func p(int i) { return i; }",
+            "func q(int i) { if (i < 1) return p(i); return q(i - 1); }",
+            "func w(int i) { return q(i); }",
+            "int t", "int x",
+            "t := 0;",
+            "while (t < 3000) { t := t + 1; x := w(20); }",
+            "w(5)",
+            "func p(int i) { return i = i; }",
+            "w(5)",
+            "boolean y",
+            "t := 0;",
+            "while (t < 3000) { t := t + 1; y := w(20); }",
+            "y",
+            "func p(int i) { return i + 40; }",
+            "w(5)",
+            "func r(int i) { return w(i); }",
+            "func q(int i) { if (i < 1) return 0; return r(i - 1); }",
+            "r(4)", "w(6)"),
+    };
+
+    public static void main(String[] args) throws Exception {
+        Method app = Class.forName("App").getMethod("main", String[].class);
+        int differences = 0;
+        for (int s = 0; s < SCRIPTS.length; s++) {
+            String expected = run(app, FLAGS[0], SCRIPTS[s]);
+            for (int f = 1; f < FLAGS.length; f++) {
+                String actual = run(app, FLAGS[f], SCRIPTS[s]);
+                if (!actual.equals(expected)) {
+                    differences++;
+                    System.out.println("script " + s + " with " + String.join(" ", FLAGS[f]) + " differs:");
+                    System.out.println(actual);
+                    System.out.println("default:");
+                    System.out.println(expected);
+                }
+            }
+        }
+        System.out.println(SCRIPTS.length + " scripts, " + FLAGS.length + " engines and flag sets: "
+                + differences + " differ");
+        System.out.println(differences == 0 ? "OK" : "FAILED");
+        if (differences > 0) System.exit(1);
+    }
+
+    private static String run(Method app, String[] flags, String script) throws Exception {
+        InputStream in = System.in;
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            System.setIn(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)));
+            System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+            app.invoke(null, (Object) flags);
+        } finally {
+            System.setIn(in);
+            System.setOut(out);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package simple;
+
+import java.io.StringReader;
+
+// Times nested counting loops with the Optimizer off and on (App's :opt),
+// one workload per loop optimization: an invariant product hoisted out of
+// the inner loop, a multiplication by the inner induction variable
+// strength-reduced, and a 4-trip inner loop unrolled. Each engine gets its
+// own session through App's pipeline (check, optimize, resolve), with
+// strength reduction only on the VM, as App sets it; give 'all' to have it
+// on every engine. Prints the best of the given number of runs (default 7)
+// of each.
+//
+//   java -cp "bin:lib/*" simple.LoopOptBench [runs [n [all]]]
+public class LoopOptBench {
+    private static final String[][] WORKLOADS = {
+        { "hoist", "{ i := 0; while (i < %1$d) { j := 0; while (j < %1$d) { "
+                + "s := s + (i * 3 + 1) * (i + 5); j := j + 1; } i := i + 1; } }" },
+        { "strength", "{ i := 0; while (i < %1$d) { j := 0; while (j < %1$d) { "
+                + "s := s + i * j; j := j + 1; } i := i + 1; } }" },
+        { "unroll", "{ i := 0; while (i < %2$d) { k := 0; while (k < 4) { "
+                + "s := s + k; k := k + 1; } i := i + 1; } }" },
+    };
+
+    private enum Engine { INTERPRETER, TREE, VM }
+
+    private final TypeChecker typeChecker = new TypeChecker();
+    private final Optimizer optimizer = new Optimizer();
+    private final Resolver resolver = new Resolver();
+    private final Interpreter interpreter = new Interpreter();
+    private final TreeInterpreter tree = new TreeInterpreter();
+    private final VM vm = new VM();
+    private final Frame frame = new Frame();
+    private final Engine engine;
+
+    private LoopOptBench(Engine engine) {
+        this.engine = engine;
+        optimizer.setStrengthReduction(engine == Engine.VM); // as App does
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        boolean reduceEverywhere = args.length > 2 && args[2].equals("all");
+
+        System.out.printf("%-9s %-12s %9s %9s%n", "workload", "engine", "opt off", "opt on");
+        for (String[] workload : WORKLOADS) {
+            String source = String.format(workload[1], n, n * n / 4); // the same body count
+            for (Engine engine : Engine.values()) {
+                LoopOptBench bench = new LoopOptBench(engine);
+                if (reduceEverywhere) bench.optimizer.setStrengthReduction(true);
+                for (String unit : new String[] { "int i", "int j", "int k", "int s" }) bench.run(unit);
+                bench.optimizer.setEnabled(false);
+                long off = bench.best(source, runs);
+                bench.optimizer.setEnabled(true);
+                long on = bench.best(source, runs);
+                System.out.printf("%-9s %-12s %6.1f ms %6.1f ms%n", workload[0], engine.name().toLowerCase(), off / 1e6, on / 1e6);
+            }
+        }
+    }
+
+    private long best(String source, int runs) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            long start = System.nanoTime();
+            run(source);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private void run(String source) throws Exception {
+        AstNode unit = (AstNode) new parser(new SimpleLexer(new StringReader(source))).parse().value;
+        TypeExpr type = typeChecker.check(unit);
+        unit = optimizer.optimize(unit);
+        resolver.resolve(unit);
+        switch (engine) {
+            case INTERPRETER: interpreter.evaluate(unit, frame); break;
+            case TREE: tree.evaluate(unit, frame); break;
+            case VM: vm.evaluate(unit, type); break;
+        }
+        optimizer.commit();
+    }
+}
@@ -0,0 +1,92 @@
+package simple;
+
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares the CUP-generated parser with the PrattParser. With
+// 'throughput' (the default), parses a large function, a long expression
+// and a set of small REPL units over and over for the given seconds each
+// (default 2), after warm-up, and prints MB/s. With 'first cup' or
+// 'first pratt', prints how long the first parse in this JVM takes, table
+// decoding and class loading included; run it a few times and take the
+// median. As in App, each input gets its own lexer and parser.
+//
+//   java -cp "bin:lib/*" simple.ParseBench [throughput [seconds]]
+//   java -cp "bin:lib/*" simple.ParseBench first cup|pratt
+public class ParseBench {
+    private static final String[] SMALL = {
+        "int total",
+        "func inc(var x) { return x + 1; }",
+        "inc(3) * 2",
+        "total := total + inc(4);",
+        "func fib(int n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }",
+        "fib(20) < 10 || !true",
+    };
+
+    private static int sink; // keeps the trees observable
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("first")) {
+            boolean pratt = args.length > 1 && args[1].equals("pratt");
+            long start = System.nanoTime();
+            parse(SMALL[1], pratt);
+            System.out.printf("%s first parse: %.2f ms%n", pratt ? "pratt" : "cup", (System.nanoTime() - start) / 1e6);
+            return;
+        }
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        Map<String, List<String>> inputs = new LinkedHashMap<>();
+        String func = bigFunction(2000), expr = longExpression(20000);
+        inputs.put("function, 2000 statements, " + func.length() / 1024 + " KB", List.of(func));
+        inputs.put("expression, 20000 terms, " + expr.length() / 1024 + " KB", List.of(expr));
+        inputs.put("small REPL units", List.of(SMALL));
+        for (int warm = 0; warm < 2; warm++) {
+            for (List<String> in : inputs.values()) {
+                rate(in, false, seconds / 2);
+                rate(in, true, seconds / 2);
+            }
+        }
+        for (Map.Entry<String, List<String>> e : inputs.entrySet()) {
+            double cup = rate(e.getValue(), false, seconds), pratt = rate(e.getValue(), true, seconds);
+            System.out.printf("%-36s cup %6.1f MB/s  pratt %6.1f MB/s  x%.1f%n", e.getKey(), cup, pratt, pratt / cup);
+        }
+    }
+
+    // Millions of characters parsed per second
+    private static double rate(List<String> inputs, boolean pratt, double seconds) throws Exception {
+        long chars = 0;
+        for (String s : inputs) chars += s.length();
+        long start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        long rounds = 0;
+        while (System.nanoTime() < end) {
+            for (String s : inputs) sink += parse(s, pratt).hashCode();
+            rounds++;
+        }
+        return rounds * chars / ((System.nanoTime() - start) / 1e9) / 1e6;
+    }
+
+    private static AstNode parse(String source, boolean pratt) throws Exception {
+        if (pratt) return new PrattParser(source).parse();
+        return (AstNode) new parser(new SimpleLexer(new StringReader(source))).parse().value;
+    }
+
+    private static String bigFunction(int statements) {
+        StringBuilder sb = new StringBuilder("func big(int n, var b) {\n int s; int i; boolean ok;\n");
+        for (int i = 0; i < statements; i++) {
+            sb.append(" if ((s + ").append(i).append(") * 3 < n && !(b || s = i)) s := s + f(i, n - 1) / 2;")
+              .append(" else { i := i + 1; ok := i > n || b; }\n");
+            sb.append(" while (i < ").append(i).append(") i := i + 1;\n");
+        }
+        return sb.append(" return s;\n}").toString();
+    }
+
+    private static String longExpression(int terms) {
+        String[] ops = { " + ", " * ", " - ", " < ", " && ", " || ", " = " };
+        StringBuilder sb = new StringBuilder("x0");
+        for (int i = 1; i < terms; i++) {
+            sb.append(ops[i % ops.length]).append(i % 5 == 0 ? "!x" + i : "(x" + i + " + 1)");
+        }
+        return sb.toString();
+    }
+}
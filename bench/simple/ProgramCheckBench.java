@@ -0,0 +1,101 @@
+package simple;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Times TypeChecker.checkProgram on a generated program of n functions
+// (default 50000), sequentially (a pool of one) and on a pool of the given
+// parallelism (default: the number of CPUs). The functions come in layers
+// that each call into the layer below, some of thousands of functions and
+// some of a handful, so the call graph has both wide and narrow levels.
+// Prints the best of the given number of runs (default 5) of each; exits
+// with status 1 if the two infer different types.
+//
+//   java -cp "bin:lib/*" simple.ProgramCheckBench [n [parallelism [runs]]]
+public class ProgramCheckBench {
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        ForkJoinPool sequential = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(parallelism);
+        try {
+            String[] types = new String[2];
+            long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+            ForkJoinPool[] pools = { sequential, parallel };
+            for (int r = 0; r < runs; r++) {
+                for (int p = 0; p < pools.length; p++) {
+                    ProgramNode program = program(n);
+                    long start = System.nanoTime();
+                    new TypeChecker().checkProgram(program, pools[p]);
+                    best[p] = Math.min(best[p], System.nanoTime() - start);
+                    types[p] = functionTypes(program);
+                }
+            }
+            System.out.printf("%d functions: sequential %.1f ms, parallelism %d %.1f ms (%.2fx)%n",
+                    n, best[0] / 1e6, parallelism, best[1] / 1e6, (double) best[0] / best[1]);
+            if (!types[0].equals(types[1])) {
+                System.out.println("parallel and sequential types differ");
+                System.exit(1);
+            }
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    private static String functionTypes(ProgramNode program) {
+        StringBuilder types = new StringBuilder();
+        for (FuncDef f : program.fns) types.append(f.name).append(": ").append(f.type).append('\n');
+        return types.toString();
+    }
+
+    // Layers alternate between wide (about 2000 functions) and narrow (1 to
+    // 8); each function calls one or two of the layer below, and some
+    // assign the 'var' global, which every batch then has to agree on.
+    private static ProgramNode program(int n) throws Exception {
+        Random random = new Random(42);
+        List<FuncDef> funcs = new ArrayList<>(n);
+        int below = 0, belowSize = 0; // the layer below: first index and size
+        boolean wide = true;
+        while (funcs.size() < n) {
+            int first = funcs.size();
+            int size = Math.min(n - first, wide ? 1500 + random.nextInt(1000) : 1 + random.nextInt(8));
+            for (int i = first; i < first + size; i++) {
+                String source;
+                if (belowSize == 0) {
+                    source = "func f" + i + "(var x, int y) { return x + y; }";
+                } else {
+                    int a = below + random.nextInt(belowSize), b = below + random.nextInt(belowSize);
+                    switch (i % 3) {
+                        case 0:
+                            source = "func f" + i + "(var x, int y) { var t; t := x; if (t < y) return f" + a
+                                    + "(t, y) * 2; shared := t; return y; }";
+                            break;
+                        case 1:
+                            source = "func f" + i + "(int n, int m) { int s; s := 0; while (s < n && m > 0) "
+                                    + "{ s := s + f" + a + "(s, m); } return s + f" + b + "(m, n); }";
+                            break;
+                        default:
+                            source = "func f" + i + "(var p, int q) { if (p = q) return f" + a + "(q, p); return q; }";
+                    }
+                }
+                funcs.add((FuncDef) parse(source));
+            }
+            below = first;
+            belowSize = size;
+            wide = !wide;
+        }
+        List<VarDecl> globals = List.of((VarDecl) parse("var shared"));
+        List<Stmt> main = List.of((Stmt) parse("shared := f0(1, 2);"));
+        return new ProgramNode(funcs, globals, main);
+    }
+
+    private static AstNode parse(String source) throws Exception {
+        return (AstNode) new parser(new SimpleLexer(new StringReader(source))).parse().value;
+    }
+}
@@ -0,0 +1,92 @@
+package simple;
+
+import java.io.StringReader;
+
+// Times the bytecode VM against the default engine (the Interpreter, with
+// its tiering) and the node tree on nested while loops, on recursive fib,
+// with a global call counter so the Interpreter cannot memoize it, and on
+// a loop calling a helper the Optimizer inlines.
+// Each engine gets its own session through the same pipeline as App
+// (check, optimize, resolve). Prints the best of the given number of runs
+// (default 5) of each, and how many times faster the VM is. The VM's
+// dispatch loop is compiled for the opcodes it has seen run, so give
+// 'loops', 'fib' or 'calls' to time one workload in a fresh JVM.
+//
+//   java -cp "bin:lib/*" simple.VmBench [loops|fib|calls|all] [runs [outer inner [n]]]
+public class VmBench {
+    private static final String LOOP = "{ i := 0; s := 0; while (i < %d) { j := 0; "
+            + "while (j < %d) { s := s + j; j := j + 1; } i := i + 1; } }";
+    private static final String FIB = "func fib(int n) { c := c + 1; "
+            + "if (n < 2) return n; else return fib(n - 1) + fib(n - 2); }";
+    private static final String SQ = "func sq(int x) { return x * x; }";
+    private static final String CALLS = "{ i := 0; s := 0; while (i < %d) { s := s + sq(i); i := i + 1; } }";
+
+    private enum Engine { INTERPRETER, TREE, VM }
+
+    private final TypeChecker typeChecker = new TypeChecker();
+    private final Optimizer optimizer = new Optimizer();
+    private final Resolver resolver = new Resolver();
+    private final Interpreter interpreter = new Interpreter();
+    private final TreeInterpreter tree = new TreeInterpreter();
+    private final VM vm = new VM();
+    private final Frame frame = new Frame();
+    private final Engine engine;
+
+    private VmBench(Engine engine) {
+        this.engine = engine;
+        optimizer.setStrengthReduction(engine == Engine.VM); // as App does
+    }
+
+    public static void main(String[] args) throws Exception {
+        String which = args.length > 0 ? args[0] : "all";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int outer = args.length > 3 ? Integer.parseInt(args[2]) : 4000;
+        int inner = args.length > 3 ? Integer.parseInt(args[3]) : 4000;
+        int n = args.length > 4 ? Integer.parseInt(args[4]) : 27;
+
+        String[][] workloads = {
+            { "loops", "loops " + outer + "x" + inner, String.format(LOOP, outer, inner) },
+            { "fib", "fib(" + n + ")", "{ c := 0; s := fib(" + n + "); }" },
+            { "calls", "calls " + outer * inner, String.format(CALLS, outer * inner) },
+        };
+        long[][] best = new long[workloads.length][Engine.values().length];
+        for (Engine engine : Engine.values()) {
+            VmBench bench = new VmBench(engine);
+            for (String unit : new String[] { "int i", "int j", "int s", "int c", FIB, SQ }) bench.run(unit);
+            for (int w = 0; w < workloads.length; w++) {
+                if (which.equals("all") || which.equals(workloads[w][0])) {
+                    best[w][engine.ordinal()] = bench.best(workloads[w][2], runs);
+                }
+            }
+        }
+        for (int w = 0; w < workloads.length; w++) {
+            long[] b = best[w];
+            if (b[0] == 0) continue;
+            System.out.printf("%-15s interpreter %7.1f ms  tree %7.1f ms  vm %7.1f ms  (vm %.1fx interpreter, %.1fx tree)%n",
+                    workloads[w][1], b[0] / 1e6, b[1] / 1e6, b[2] / 1e6, (double) b[0] / b[2], (double) b[1] / b[2]);
+        }
+    }
+
+    private long best(String source, int runs) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            long start = System.nanoTime();
+            run(source);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private void run(String source) throws Exception {
+        AstNode unit = (AstNode) new parser(new SimpleLexer(new StringReader(source))).parse().value;
+        TypeExpr type = typeChecker.check(unit);
+        unit = optimizer.optimize(unit);
+        resolver.resolve(unit);
+        switch (engine) {
+            case INTERPRETER: interpreter.evaluate(unit, frame); break;
+            case TREE: tree.evaluate(unit, frame); break;
+            case VM: vm.evaluate(unit, type); break;
+        }
+        optimizer.commit();
+    }
+}
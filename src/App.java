@@ -1,6 +1,9 @@
 import simple.*;
 import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.TreeMap;
 import java_cup.runtime.Symbol;
 
 public class App {
@@ -8,10 +11,41 @@ public class App {
         System.out.println("Simple REPL v2.0 (Multi-line & Typed)");
         System.out.println("Type 'exit' to quit.");
 
+        // Execution engine: the tree-walking Interpreter by default, the bytecode VM
+        // with --vm, or the self-specializing node tree with --tree
+        boolean useVm = Arrays.asList(args).contains("--vm");
+        boolean useTree = Arrays.asList(args).contains("--tree");
+        // Parser: the CUP-generated one by default, the hand-written
+        // PrattParser with --pratt; both give the same trees
+        boolean usePratt = Arrays.asList(args).contains("--pratt");
+
         // 1. Persistent State
         TypeChecker typeChecker = new TypeChecker(); // Persistent TypeEnv
+        Optimizer optimizer = new Optimizer();       // Persistent known global constants
+        optimizer.setStrengthReduction(useVm);
+        Resolver resolver = new Resolver();          // Persistent global slot table
         Interpreter interpreter = new Interpreter(); // New Interpreter
-        Env runtimeEnv = new Env();                  // Persistent Runtime Env
+        Frame runtimeEnv = new Frame();              // Persistent Runtime Env
+        VM vm = new VM();                            // Persistent VM globals
+        TreeInterpreter tree = new TreeInterpreter();
+
+        // Deepest Simple recursion the VM allows, with --max-depth=N. The VM
+        // keeps call frames on the heap; the other engines nest Java calls
+        // and are limited by the thread's stack instead.
+        // Calls after which the Interpreter moves a function to the node tree,
+        // with --tier-threshold=N; it goes on to the JitCompiler at 10 * N.
+        for (String arg : args) {
+            try {
+                if (arg.startsWith("--max-depth=")) vm.setMaxDepth(Integer.parseInt(arg.substring("--max-depth=".length())));
+                if (arg.startsWith("--tier-threshold=")) {
+                    int n = Integer.parseInt(arg.substring("--tier-threshold=".length()));
+                    interpreter.setTierThresholds(n, (int) Math.min(10L * n, Integer.MAX_VALUE));
+                }
+            } catch (IllegalArgumentException e) { // NumberFormatException too
+                System.out.println("Error: " + arg + ": expected a whole number of at least 1");
+                System.exit(1);
+            }
+        }
 
         Scanner scanner = new Scanner(System.in);
         StringBuilder inputBuffer = new StringBuilder();
@@ -26,6 +60,36 @@ public class App {
 
             // Handle commands
             if (line.trim().equals("exit")) break;
+            if (line.trim().equals(":opt") && inputBuffer.length() == 0) {
+                optimizer.setEnabled(!optimizer.isEnabled());
+                System.out.println("Optimizer " + (optimizer.isEnabled() ? "on" : "off"));
+                continue;
+            }
+            if (line.trim().equals(":memo") && inputBuffer.length() == 0) {
+                Map<String, MemoTable> tables = interpreter.memoTables();
+                if (tables.isEmpty()) System.out.println("No memoized functions");
+                for (Map.Entry<String, MemoTable> e : new TreeMap<>(tables).entrySet()) {
+                    MemoTable t = e.getValue();
+                    System.out.println(e.getKey() + ": " + t.hits() + " hits, " + t.misses() + " misses, "
+                            + t.size() + "/" + t.capacity() + " entries");
+                }
+                continue;
+            }
+            if (line.trim().equals(":tiers") && inputBuffer.length() == 0) {
+                if (useVm || useTree) {
+                    System.out.println("Tiering only applies to the default engine (without --vm or --tree)");
+                    continue;
+                }
+                Map<String, FunctionProfile> profiles = interpreter.profiles();
+                if (profiles.isEmpty()) System.out.println("No functions defined");
+                for (Map.Entry<String, FunctionProfile> e : new TreeMap<>(profiles).entrySet()) {
+                    FunctionProfile p = e.getValue();
+                    System.out.println(e.getKey() + ": " + p.tier().name().toLowerCase() + ", " + p.calls() + " calls, "
+                            + (p.inlinedCalls() > 0 ? p.inlinedCalls() + " inlined, " : "")
+                            + p.backEdges() + " loop back-edges");
+                }
+                continue;
+            }
             if (line.trim().isEmpty() && inputBuffer.length() == 0) continue;
 
             inputBuffer.append(line).append("\n");
@@ -40,11 +104,16 @@ public class App {
 
             try {
                 // 3. Parse
-                SimpleLexer lexer = new SimpleLexer(new StringReader(input));
-                parser p = new parser(lexer);
-                // Ensure SimpleParser.cup has 'repl_unit' as the start symbol!
-                Symbol resultSym = p.parse(); 
-                AstNode result = (AstNode) resultSym.value;
+                AstNode result;
+                if (usePratt) {
+                    result = new PrattParser(input).parse();
+                } else {
+                    SimpleLexer lexer = new SimpleLexer(new StringReader(input));
+                    parser p = new parser(lexer);
+                    // Ensure SimpleParser.cup has 'repl_unit' as the start symbol!
+                    Symbol resultSym = p.parse(); 
+                    result = (AstNode) resultSym.value;
+                }
 
                 // 4. Type Check
                 // This ensures types are valid and 'var's are recorded in TypeEnv
@@ -55,9 +124,31 @@ public class App {
                     System.out.println("Type: " + type.toString());
                 }
 
-                // 5. Execute
-                interpreter.evaluate(result, runtimeEnv);
+                // 5. Optimize (the unit is still observed while :opt has it off)
+                result = optimizer.optimize(result);
+
+                // 6. Resolve variables to (depth, slot) addresses
+                resolver.resolve(result);
+
+                // 7. Execute
+                if (useVm) vm.evaluate(result, type);
+                else if (useTree) tree.evaluate(result, runtimeEnv);
+                else interpreter.evaluate(result, runtimeEnv);
+                optimizer.commit();
+
+                // 8. Functions the redefinition checked again run with their new
+                // types: the code built from the old ones is replaced
+                for (AstNode dependent : typeChecker.rechecked()) {
+                    AstNode def = optimizer.optimize(dependent);
+                    resolver.resolve(def);
+                    if (useVm) vm.evaluate(def, null);
+                    else if (useTree) tree.evaluate(def, runtimeEnv);
+                    else interpreter.evaluate(def, runtimeEnv);
+                    optimizer.commit();
+                }
 
+            } catch (StackOverflowError e) {
+                System.out.println("Error: stack depth exceeded (use --vm for deep recursion)");
             } catch (Exception e) {
                 System.out.println("Error: " + e.getMessage());
                 // e.printStackTrace(); // Useful for debugging crashes
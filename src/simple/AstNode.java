@@ -1,6 +1,7 @@
 package simple;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 // --- Helper for indentation (Kept here as it relates to AST visualization/debug) ---
@@ -12,7 +13,7 @@ class Indent {
 
 // --- Base AST Node Interfaces ---
 
-public interface AstNode {
+public sealed interface AstNode permits Stmt, Expr, ProgramNode, FuncDef {
     String toString(int indent);
 
     @Override
@@ -22,18 +23,56 @@ public interface AstNode {
     AstNode deepCopy();
 }
 
-abstract class Stmt implements AstNode {
+// Each Stmt and Expr carries its kind, and passes dispatch with a switch on
+// 'kind' rather than a chain of instanceof tests. The kinds are plain ints,
+// so nothing checks a switch covers them all: a pass that misses a new kind
+// still compiles and reaches its 'default' branch at run time. Only the
+// 'permits' lists below are checked by the compiler. DispatchBench shows no
+// measurable speedup over the chains; the switches are kept because every
+// pass now has one shape. FuncDef and ProgramNode have no kind, so passes
+// taking any AstNode still test for them with instanceof.
+final class StmtKind {
+    private StmtKind() {}
+    static final int VAR_DECL = 0, ASSIGN = 1, BLOCK = 2, IF = 3, LOOP = 4, RETURN = 5;
+}
+
+final class ExprKind {
+    private ExprKind() {}
+    static final int INT_LITERAL = 0, BOOL_LITERAL = 1, ID = 2, BINARY = 3, CALL = 4, INLINED_CALL = 5;
+}
+
+abstract sealed class Stmt implements AstNode
+        permits VarDecl, AssignStmt, BlockStmt, IfStmt, LoopStmt, ReturnStmt {
+    final int kind;
+
+    Stmt(int kind) {
+        this.kind = kind;
+    }
+
      @Override
     public final String toString() {
         return toString(0);
     }
 }
 
-abstract class Expr implements AstNode {
+abstract sealed class Expr implements AstNode
+        permits IntLiteral, BoolLiteral, IdExpr, BinaryExpr, FuncCall, InlinedCall {
+    final int kind;
+    TypeExpr type; // assigned by TypeChecker, already resolved with find()
+
+    Expr(int kind) {
+        this.kind = kind;
+    }
+
      @Override
     public final String toString() {
         return toString(0);
     }
+
+    // INTEGER or BOOLEAN if the checker resolved this expression to one, else null
+    Type valueType() {
+        return type instanceof TypeConst ? ((TypeConst) type).type : null;
+    }
 }
 
 enum Type {
@@ -46,7 +85,7 @@ enum Operator {
 
 // --- AST Node Implementations (with deepCopy only) ---
 
-class ProgramNode implements AstNode {
+final class ProgramNode implements AstNode {
     final List<FuncDef> fns;
     final List<VarDecl> globals;
     final List<Stmt> main;
@@ -91,11 +130,13 @@ class ProgramNode implements AstNode {
     }
 }
 
-class VarDecl extends Stmt {
+final class VarDecl extends Stmt {
     final String name;
     final Type type;
+    int slot = -1; // assigned by Resolver
 
     public VarDecl(String name, Type type) {
+        super(StmtKind.VAR_DECL);
         this.name = name;
         this.type = type;
     }
@@ -112,10 +153,14 @@ class VarDecl extends Stmt {
     }
 }
 
-class FuncDef implements AstNode {
+final class FuncDef implements AstNode {
     final String name;
     final List<VarDecl> params;
     final Stmt body;
+    int slot = -1;      // assigned by Resolver
+    int frameSize = 0;  // params + block locals, assigned by Resolver
+    FuncType type;      // inferred by TypeChecker
+    Set<String> freeVars; // globals the body references, assigned by Resolver
 
     public FuncDef(String name, List<VarDecl> params, Stmt body) {
         this.name = name;
@@ -150,11 +195,12 @@ class FuncDef implements AstNode {
     }
 }
 
-class BlockStmt extends Stmt {
+final class BlockStmt extends Stmt {
     final List<VarDecl> declarations;
     final List<Stmt> statements;
 
     public BlockStmt(List<VarDecl> declarations, List<Stmt> statements) {
+        super(StmtKind.BLOCK);
         this.declarations = declarations;
         this.statements = statements;
     }
@@ -182,11 +228,13 @@ class BlockStmt extends Stmt {
     }
 }
 
-class AssignStmt extends Stmt {
+final class AssignStmt extends Stmt {
     final String id;
     final Expr expr;
+    int depth = -1, slot = -1; // assigned by Resolver
 
     public AssignStmt(String id, Expr expr) {
+        super(StmtKind.ASSIGN);
         this.id = id;
         this.expr = expr;
     }
@@ -206,12 +254,13 @@ class AssignStmt extends Stmt {
     }
 }
 
-class IfStmt extends Stmt {
+final class IfStmt extends Stmt {
     final Expr conditional;
     final Stmt t;
     final Stmt e;
 
     public IfStmt(Expr conditional, Stmt t, Stmt e) {
+        super(StmtKind.IF);
         this.conditional = conditional;
         this.t = t;
         this.e = e;
@@ -241,11 +290,13 @@ class IfStmt extends Stmt {
     }
 }
 
-class LoopStmt extends Stmt {
+final class LoopStmt extends Stmt {
     final Expr conditional;
     final Stmt body;
+    StmtNode osr; // node tree the Interpreter switched to once it got hot
 
     public LoopStmt(Expr conditional, Stmt body) {
+        super(StmtKind.LOOP);
         this.conditional = conditional;
         this.body = body;
     }
@@ -270,10 +321,11 @@ class LoopStmt extends Stmt {
     }
 }
 
-class ReturnStmt extends Stmt {
+final class ReturnStmt extends Stmt {
     final Expr expr;
 
     public ReturnStmt(Expr expr) {
+        super(StmtKind.RETURN);
         this.expr = expr;
     }
 
@@ -292,12 +344,13 @@ class ReturnStmt extends Stmt {
     }
 }
 
-class BinaryExpr extends Expr {
+final class BinaryExpr extends Expr {
     final Expr left;
     final Operator op;
     final Expr right;
 
     public BinaryExpr(Expr left, Operator op, Expr right) {
+        super(ExprKind.BINARY);
         this.left = left;
         this.op = op;
         this.right = right;
@@ -322,10 +375,12 @@ class BinaryExpr extends Expr {
     }
 }
 
-class IdExpr extends Expr {
+final class IdExpr extends Expr {
     final String name;
+    int depth = -1, slot = -1; // assigned by Resolver
 
     public IdExpr(String name) {
+        super(ExprKind.ID);
         this.name = name;
     }
 
@@ -341,10 +396,11 @@ class IdExpr extends Expr {
     }
 }
 
-class IntLiteral extends Expr {
+final class IntLiteral extends Expr {
     final int value;
 
     public IntLiteral(int value) {
+        super(ExprKind.INT_LITERAL);
         this.value = value;
     }
 
@@ -360,10 +416,11 @@ class IntLiteral extends Expr {
     }
 }
 
-class BoolLiteral extends Expr {
+final class BoolLiteral extends Expr {
     final boolean value;
 
     public BoolLiteral(boolean value) {
+        super(ExprKind.BOOL_LITERAL);
         this.value = value;
     }
 
@@ -379,11 +436,13 @@ class BoolLiteral extends Expr {
     }
 }
 
-class FuncCall extends Expr {
+final class FuncCall extends Expr {
     final String name;
     final List<Expr> args;
+    int depth = -1, slot = -1; // assigned by Resolver
 
     public FuncCall(String name, List<Expr> args) {
+        super(ExprKind.CALL);
         this.name = name;
         this.args = args;
     }
@@ -406,4 +465,30 @@ class FuncCall extends Expr {
         List<Expr> argsCopy = args.stream().map(a -> (Expr)a.deepCopy()).collect(Collectors.toList());
         return new FuncCall(this.name, argsCopy);
     }
-}
\ No newline at end of file
+}
+// A call whose callee body the Optimizer substituted in place. The body is
+// only valid while the name is still bound to 'target': engines check that
+// on every evaluation and run the original call otherwise.
+final class InlinedCall extends Expr {
+    final FuncCall call;
+    final Expr body;
+    final FuncDef target;
+
+    public InlinedCall(FuncCall call, Expr body, FuncDef target) {
+        super(ExprKind.INLINED_CALL);
+        this.call = call;
+        this.body = body;
+        this.target = target;
+    }
+
+    @Override
+    public String toString(int indent) {
+        return "Inlined" + call.toString(indent);
+    }
+
+    // --- Deep Copy Implementation ---
+    @Override
+    public AstNode deepCopy() {
+        return call.deepCopy(); // the copy is checked and optimized again
+    }
+}
@@ -6,9 +6,9 @@ import java.util.List;
 public class BigStep {
     static EnvItem init(Type t){
         if (t == Type.BOOLEAN) {
-            return new BoolVal(false);
+            return BoolVal.FALSE;
         }else if(t == Type.INTEGER){
-            return new IntVal(0);
+            return IntVal.of(0);
         }
         throw new RuntimeException("Invalid Type");
     }
@@ -43,47 +43,60 @@ public class BigStep {
         return env;
     } 
     EnvItem evaluate(Expr expr, Env env){
-        if(expr instanceof BinaryExpr) return evaluate((BinaryExpr)expr, env);
-        if(expr instanceof IntLiteral) return evaluate((IntLiteral)expr, env);
-        if(expr instanceof BoolLiteral) return evaluate((BoolLiteral)expr, env);
-        if(expr instanceof FuncCall) return evaluate((FuncCall)expr, env);
-        if(expr instanceof IdExpr) return evaluate((IdExpr)expr, env);
-        throw new UnsupportedOperationException(expr.toString() + "This expression type is not implemented");
+        switch (expr.kind) {
+            case ExprKind.BINARY: return evaluate((BinaryExpr)expr, env);
+            case ExprKind.INT_LITERAL: return evaluate((IntLiteral)expr, env);
+            case ExprKind.BOOL_LITERAL: return evaluate((BoolLiteral)expr, env);
+            case ExprKind.CALL: return evaluate((FuncCall)expr, env);
+            case ExprKind.INLINED_CALL: return evaluate(((InlinedCall)expr).call, env);
+            case ExprKind.ID: return evaluate((IdExpr)expr, env);
+            default: throw new UnsupportedOperationException(expr.toString() + "This expression type is not implemented");
+        }
     }
 
     private EnvItem evaluate(IntLiteral expr, Env env){
-        return new IntVal(expr.value);
+        return IntVal.of(expr.value);
     }
     private EnvItem evaluate(BoolLiteral expr, Env env){
-        return new BoolVal(expr.value);
+        return BoolVal.of(expr.value);
     }
     private EnvItem evaluate(IdExpr expr, Env env){
         return env.getVal(expr.name);
     }
     private EnvItem evaluate(BinaryExpr expr, Env env){
+        if (expr.op == Operator.AND || expr.op == Operator.OR) {
+            // The right operand only runs when the left one does not decide
+            boolean left = ((BoolVal)evaluate(expr.left, env)).value;
+            if (left == (expr.op == Operator.OR)) return BoolVal.of(left);
+            return evaluate(expr.right, env);
+        }
         EnvItem leftItem = evaluate(expr.left, env);
         EnvItem rightItem = evaluate(expr.right, env);
         //to do: add type checking here
         switch (expr.op) {
-            case ADD: return new IntVal(((IntVal)leftItem).value + ((IntVal)rightItem).value);
-            case AND: return new BoolVal(((BoolVal)leftItem).value && ((BoolVal)rightItem).value);
-            case DIV: return new IntVal(((IntVal)leftItem).value / ((IntVal)rightItem).value);
+            case ADD: return IntVal.of(((IntVal)leftItem).value + ((IntVal)rightItem).value);
+            case AND: return BoolVal.of(((BoolVal)leftItem).value && ((BoolVal)rightItem).value);
+            case DIV: return IntVal.of(((IntVal)leftItem).value / ((IntVal)rightItem).value);
             case EQ: 
                 if(leftItem instanceof BoolVal && rightItem instanceof BoolVal)
-                    return new BoolVal(((BoolVal)leftItem).value == ((BoolVal)rightItem).value);
+                    return BoolVal.of(((BoolVal)leftItem).value == ((BoolVal)rightItem).value);
                 else if(leftItem instanceof IntVal && rightItem instanceof IntVal)
-                    return new BoolVal(((IntVal)leftItem).value == ((IntVal)rightItem).value);
+                    return BoolVal.of(((IntVal)leftItem).value == ((IntVal)rightItem).value);
                    
-            case GT: return new BoolVal(((IntVal)leftItem).value > ((IntVal)rightItem).value);
-            case LT:return new BoolVal(((IntVal)leftItem).value < ((IntVal)rightItem).value);
-            case MUL: return new IntVal(((IntVal)leftItem).value * ((IntVal)rightItem).value);
-            case OR: return new BoolVal(((BoolVal)leftItem).value || ((BoolVal)rightItem).value);
-            case SUB: return new IntVal(((IntVal)leftItem).value - ((IntVal)rightItem).value);
+            case GT: return BoolVal.of(((IntVal)leftItem).value > ((IntVal)rightItem).value);
+            case LT:return BoolVal.of(((IntVal)leftItem).value < ((IntVal)rightItem).value);
+            case MUL: return IntVal.of(((IntVal)leftItem).value * ((IntVal)rightItem).value);
+            case OR: return BoolVal.of(((BoolVal)leftItem).value || ((BoolVal)rightItem).value);
+            case SUB: return IntVal.of(((IntVal)leftItem).value - ((IntVal)rightItem).value);
             default:
                 throw new UnsupportedOperationException("Binary operator not found");
             
         }
     }
+    // Callees are looked up by name on every call. A per-site cache of the
+    // Closure, checked against a version of the global bindings, was no
+    // faster: a lookup is a couple of HashMap probes. The other engines
+    // address callees by Resolver (depth, slot) and look up nothing.
     private EnvItem evaluate(FuncCall funcCall, Env env){
         EnvItem func = env.getVal(funcCall.name);
         if(!(func instanceof Closure)){
@@ -94,7 +107,7 @@ public class BigStep {
         if(funcCall.args.size() != funcDef.params.size()){
             throw new RuntimeException("no of Params not matched!");
         }
-        Env fenv = closure.funcEnv;
+        Env fenv = closure.funcEnv.globalView();
         fenv.enterScope();
 
         try {
@@ -107,10 +120,8 @@ public class BigStep {
                 fenv.declare(funcDef.params.get(i).name, argVals.get(i));
             }
             
-            evaluate(funcDef.body, fenv);
-
-        } catch (ReturnValueException e) {
-            return e.value; 
+            EnvItem ret = evaluate(funcDef.body, fenv);
+            if(ret != null) return ret;
         } finally {
             fenv.exitScope(); 
         }
@@ -118,52 +129,60 @@ public class BigStep {
         // If the function ends without a return statement.
         throw new RuntimeException("Function " + funcCall.name + " did not return a value.");
     }
-    void evaluate(Stmt stmt, Env env){
-        if(stmt instanceof BlockStmt)evaluate((BlockStmt) stmt, env);
-        else if(stmt instanceof VarDecl)evaluate((VarDecl)stmt, env);
-        else if(stmt instanceof IfStmt) evaluate((IfStmt) stmt, env);
-        else if(stmt instanceof LoopStmt) evaluate((LoopStmt) stmt, env);
-        else if(stmt instanceof AssignStmt) evaluate((AssignStmt) stmt, env);
-        else if(stmt instanceof ReturnStmt) evaluate((ReturnStmt)stmt, env);
-        else throw new UnsupportedOperationException(stmt.toString() + "This statement type has not been implemented");
+    // Returns the value of an executed 'return', or null if execution falls through.
+    EnvItem evaluate(Stmt stmt, Env env){
+        switch (stmt.kind) {
+            case StmtKind.BLOCK: return evaluate((BlockStmt) stmt, env);
+            case StmtKind.IF: return evaluate((IfStmt) stmt, env);
+            case StmtKind.LOOP: return evaluate((LoopStmt) stmt, env);
+            case StmtKind.RETURN: return evaluate((ReturnStmt)stmt, env);
+            case StmtKind.VAR_DECL: evaluate((VarDecl)stmt, env); return null;
+            case StmtKind.ASSIGN: evaluate((AssignStmt) stmt, env); return null;
+            default: throw new UnsupportedOperationException(stmt.toString() + "This statement type has not been implemented");
+        }
     }
     void evaluate(FuncDef def, Env env){
-        env.declare(def.name, new Closure(def, new Env(env)));
+        env.declare(def.name, new Closure(def, env.globalView()));
     }
     private void evaluate(VarDecl decl, Env env){
         env.declare(decl.name, BigStep.init(decl.type));
     }
-    private void evaluate(BlockStmt b, Env env){
+    private EnvItem evaluate(BlockStmt b, Env env){
         env.enterScope();
         for (VarDecl decl : b.declarations) {
             evaluate(decl, env);
         }
+        EnvItem ret = null;
         for (Stmt stmt : b.statements) {
-            evaluate(stmt, env);
+            ret = evaluate(stmt, env);
+            if(ret != null) break;
         }
         //System.out.println("Exiting Block Env: " + env.toString());
         env.exitScope();
+        return ret;
     }
-    private void evaluate(IfStmt ifStmt, Env env){
+    private EnvItem evaluate(IfStmt ifStmt, Env env){
         if(((BoolVal)evaluate(ifStmt.conditional, env)).value){
-            evaluate(ifStmt.t, env);
+            return evaluate(ifStmt.t, env);
         }else{
             if(ifStmt.e != null)
-                evaluate(ifStmt.e, env);
+                return evaluate(ifStmt.e, env);
         }
+        return null;
     }
-    private void evaluate(LoopStmt loopStmt, Env env){
+    private EnvItem evaluate(LoopStmt loopStmt, Env env){
         while(((BoolVal)evaluate(loopStmt.conditional, env)).value){
-            evaluate(loopStmt.body, env);
+            EnvItem ret = evaluate(loopStmt.body, env);
+            if(ret != null) return ret;
         }
+        return null;
     }
     private void evaluate(AssignStmt assign, Env env){
         //to do: Add type checking here
         env.addVal(assign.id, evaluate(assign.expr, env));
     }
-    private void evaluate(ReturnStmt stmt, Env env){
-        //env.exitScope();
-        throw new ReturnValueException(evaluate(stmt.expr, env));
+    private EnvItem evaluate(ReturnStmt stmt, Env env){
+        return evaluate(stmt.expr, env);
     }
 
 }
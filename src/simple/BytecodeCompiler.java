@@ -0,0 +1,460 @@
+package simple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Compiles a resolved REPL unit into bytecode for the VM.
+// Runs after Resolver.resolve, so every variable already has its (depth, slot) address.
+public class BytecodeCompiler {
+    private final VM vm;
+
+    // State of the Proto being emitted
+    private int[] code;
+    private int size;
+    private List<Object> consts;
+    private int stackDepth, maxStack;
+    private boolean inFunction;
+    private int functionSlot = -1; // global slot of the function being compiled
+    private final BitSet topLocals = new BitSet(); // top-level block locals of this unit
+    private final BitSet unassigned = new BitSet(); // 'var' locals no path has assigned yet
+
+    public BytecodeCompiler(VM vm) {
+        this.vm = vm;
+    }
+
+    // New Entry Point for REPL: returns the top-level code of the unit
+    public Proto compile(AstNode node) {
+        topLocals.clear();
+        unassigned.clear();
+        begin();
+        if (node instanceof FuncDef) {
+            FuncDef def = (FuncDef) node;
+            Proto fn = compileFunction(def);
+            begin();
+            emit(Opcode.CLOSURE, constant(fn));
+            push();
+            emit(Opcode.DEFINE, def.slot);
+            pop();
+        } else if (node instanceof VarDecl) {
+            VarDecl decl = (VarDecl) node;
+            emitDefault();
+            emit(Opcode.DEFINE, decl.slot);
+            pop();
+        } else if (node instanceof Stmt) {
+            compileStmt((Stmt) node);
+        } else if (node instanceof Expr) {
+            compileExpr((Expr) node); // result is left on the stack
+        } else {
+            throw new UnsupportedOperationException("Unknown AST Node for compiling");
+        }
+        emit(Opcode.HALT);
+        return finish("<top>", 0, 0, null);
+    }
+
+    private Proto compileFunction(FuncDef def) {
+        inFunction = true;
+        functionSlot = def.slot;
+        unassigned.clear();
+        try {
+            compileStmt(def.body);
+            emit(Opcode.FAIL, constant("Function " + def.name + " finished without return."));
+            return finish(def.name, def.params.size(), def.frameSize, def);
+        } finally {
+            inFunction = false;
+            functionSlot = -1;
+            unassigned.clear();
+        }
+    }
+
+    private void begin() {
+        code = new int[64];
+        size = 0;
+        consts = new ArrayList<>();
+        stackDepth = 0;
+        maxStack = 0;
+    }
+
+    private Proto finish(String name, int arity, int frameSize, FuncDef def) {
+        return new Proto(name, arity, frameSize, maxStack, Arrays.copyOf(code, size), consts.toArray(), def);
+    }
+
+    // --- Statements ---
+
+    private void compileStmt(Stmt stmt) {
+        switch (stmt.kind) {
+            case StmtKind.VAR_DECL: {
+                VarDecl decl = (VarDecl) stmt;
+                emitDefault();
+                if (decl.type == null) unassigned.set(decl.slot); // no default, unlike int and boolean
+                else unassigned.clear(decl.slot);
+                if (inFunction) {
+                    emit(Opcode.STORE, decl.slot);
+                } else {
+                    topLocals.set(decl.slot);
+                    vm.ensureGlobals(decl.slot + 1);
+                    emit(Opcode.STORE, decl.slot);
+                }
+                pop();
+                break;
+            }
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                if (!compileIncrement(assign) && !compileThreeAddress(assign)) {
+                    compileExpr(assign.expr);
+                    emitStore(assign.depth, assign.slot, assign.id);
+                }
+                if (isLocal(assign.depth, assign.slot)) unassigned.clear(assign.slot);
+                break;
+            }
+            case StmtKind.BLOCK: {
+                BlockStmt block = (BlockStmt) stmt;
+                for (VarDecl decl : block.declarations) compileStmt(decl);
+                for (Stmt s : block.statements) compileStmt(s);
+                break;
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                int toElse = compileBranch(ifStmt.conditional, false);
+                compileStmt(ifStmt.t);
+                if (ifStmt.e != null) {
+                    int toEnd = emitJump(Opcode.JUMP);
+                    patch(toElse);
+                    compileStmt(ifStmt.e);
+                    patch(toEnd);
+                } else {
+                    patch(toElse);
+                }
+                break;
+            }
+            case StmtKind.LOOP: {
+                // Rotated: the condition sits after the body and branches back, so
+                // an iteration runs one branch instead of a branch and a jump
+                LoopStmt loop = (LoopStmt) stmt;
+                assignedIn(loop.body); // an earlier iteration may have assigned them
+                int toCondition = emitJump(Opcode.JUMP);
+                int top = size;
+                compileStmt(loop.body);
+                patch(toCondition);
+                code[compileBranch(loop.conditional, true)] = top;
+                break;
+            }
+            case StmtKind.RETURN:
+                compileExpr(((ReturnStmt) stmt).expr);
+                emit(Opcode.RETURN);
+                pop();
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown Stmt: " + stmt);
+        }
+    }
+
+    // --- Expressions ---
+
+    private void compileExpr(Expr expr) {
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL:
+                emit(Opcode.PUSH, ((IntLiteral) expr).value);
+                push();
+                break;
+            case ExprKind.BOOL_LITERAL:
+                emit(Opcode.PUSH, ((BoolLiteral) expr).value ? 1 : 0);
+                push();
+                break;
+            case ExprKind.ID: {
+                IdExpr id = (IdExpr) expr;
+                emitLoad(id.depth, id.slot, id.name);
+                break;
+            }
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                if (bin.op == Operator.AND || bin.op == Operator.OR) {
+                    compileShortCircuit(bin);
+                    break;
+                }
+                compileExpr(bin.left);
+                int fused = fusedOpcodeFor(bin.op, bin.right);
+                if (fused >= 0) {
+                    emit(fused, operandOf(bin.right));
+                } else {
+                    compileExpr(bin.right);
+                    emit(opcodeFor(bin.op));
+                    pop();
+                }
+                break;
+            }
+            case ExprKind.CALL: {
+                FuncCall call = (FuncCall) expr;
+                for (Expr arg : call.args) compileExpr(arg);
+                if (isVisible(call.depth, call.slot) && !isLocal(call.depth, call.slot)) {
+                    emit(Opcode.CALL_GLOBAL, call.slot, call.args.size());
+                    push();
+                } else {
+                    emitLoad(call.depth, call.slot, call.name);
+                    emit(Opcode.CALL, call.args.size());
+                }
+                for (int i = 0; i < call.args.size(); i++) pop();
+                break;
+            }
+            case ExprKind.INLINED_CALL: {
+                // The body runs while the global still holds a closure compiled
+                // from the inlined FuncDef; a redefinition falls back to the call
+                InlinedCall inlined = (InlinedCall) expr;
+                FuncCall call = inlined.call;
+                if (!isVisible(call.depth, call.slot) || isLocal(call.depth, call.slot)) {
+                    compileExpr(call);
+                    break;
+                }
+                emit(Opcode.GUARD_CALLEE, call.slot, constant(inlined.target), -1);
+                int toCall = size - 1;
+                compileExpr(inlined.body);
+                int toEnd = emitJump(Opcode.JUMP);
+                patch(toCall);
+                pop(); // only one of the two branches leaves its value
+                compileExpr(call);
+                patch(toEnd);
+                break;
+            }
+            default:
+                throw new UnsupportedOperationException("Unknown Expr: " + expr);
+        }
+    }
+
+    // The right operand is jumped over when the left one decides
+    private void compileShortCircuit(BinaryExpr bin) {
+        compileExpr(bin.left);
+        int toRight = emitJump(Opcode.JUMP_IF_FALSE);
+        pop();
+        if (bin.op == Operator.AND) {
+            compileExpr(bin.right);
+            int toEnd = emitJump(Opcode.JUMP);
+            patch(toRight);
+            emit(Opcode.PUSH, 0);
+            patch(toEnd);
+        } else {
+            emit(Opcode.PUSH, 1);
+            int toEnd = emitJump(Opcode.JUMP);
+            patch(toRight);
+            compileExpr(bin.right);
+            patch(toEnd);
+        }
+    }
+
+    private int opcodeFor(Operator op) {
+        switch (op) {
+            case ADD: return Opcode.ADD;
+            case SUB: return Opcode.SUB;
+            case MUL: return Opcode.MUL;
+            case DIV: return Opcode.DIV;
+            case LT:  return Opcode.LT;
+            case GT:  return Opcode.GT;
+            case EQ:  return Opcode.EQ;
+            default: throw new RuntimeException("Unknown Op: " + op);
+        }
+    }
+
+    // --- Superinstructions ---
+
+    // x := x + k and x := x - k become a single INC, or INC_GLOBAL on a
+    // free variable of a function
+    private boolean compileIncrement(AssignStmt assign) {
+        if (!(assign.expr instanceof BinaryExpr)) return false;
+        BinaryExpr bin = (BinaryExpr) assign.expr;
+        if (bin.op != Operator.ADD && bin.op != Operator.SUB) return false;
+        if (!(bin.left instanceof IdExpr) || !(bin.right instanceof IntLiteral)) return false;
+        IdExpr id = (IdExpr) bin.left;
+        if (id.depth != assign.depth || id.slot != assign.slot) return false;
+        int k = ((IntLiteral) bin.right).value;
+        if (isLoadable(id)) {
+            emit(Opcode.INC, assign.slot, bin.op == Operator.ADD ? k : -k);
+        } else if (inFunction && isVisible(id.depth, id.slot)) {
+            emit(Opcode.INC_GLOBAL, assign.slot, bin.op == Operator.ADD ? k : -k);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    // x := a op b on locals becomes a single ADD_LL, SUB_LL or MUL_LL
+    private boolean compileThreeAddress(AssignStmt assign) {
+        if (!(assign.expr instanceof BinaryExpr)) return false;
+        BinaryExpr bin = (BinaryExpr) assign.expr;
+        int opcode;
+        switch (bin.op) {
+            case ADD: opcode = Opcode.ADD_LL; break;
+            case SUB: opcode = Opcode.SUB_LL; break;
+            case MUL: opcode = Opcode.MUL_LL; break;
+            default: return false;
+        }
+        if (!(bin.left instanceof IdExpr) || !(bin.right instanceof IdExpr)) return false;
+        IdExpr a = (IdExpr) bin.left, b = (IdExpr) bin.right;
+        if (!isLoadable(a) || !isLoadable(b)) return false;
+        if ((inFunction && assign.depth != 0) || !isVisible(assign.depth, assign.slot)) return false;
+        emit(opcode, assign.slot, a.slot, b.slot);
+        return true;
+    }
+
+    // Code that jumps when 'cond' is 'when', as one compare-and-branch if
+    // it compares a local with an int or a local. Returns the index of the
+    // jump target operand, for the caller to patch.
+    private int compileBranch(Expr cond, boolean when) {
+        if (cond instanceof BinaryExpr) {
+            BinaryExpr bin = (BinaryExpr) cond;
+            int fused = fusedOpcodeFor(bin.op, bin.right);
+            if (bin.left instanceof IdExpr && isLoadable((IdExpr) bin.left) && fused >= 0) {
+                int opcode = -1;
+                switch (fused) {
+                    case Opcode.LT_I: opcode = when ? Opcode.IF_LT_I : Opcode.UNLESS_LT_I; break;
+                    case Opcode.GT_I: opcode = when ? Opcode.IF_GT_I : Opcode.UNLESS_GT_I; break;
+                    case Opcode.EQ_I: opcode = when ? Opcode.IF_EQ_I : Opcode.UNLESS_EQ_I; break;
+                    case Opcode.LT_L: opcode = when ? Opcode.IF_LT_L : Opcode.UNLESS_LT_L; break;
+                    case Opcode.GT_L: opcode = when ? Opcode.IF_GT_L : Opcode.UNLESS_GT_L; break;
+                    case Opcode.EQ_L: opcode = when ? Opcode.IF_EQ_L : Opcode.UNLESS_EQ_L; break;
+                }
+                if (opcode >= 0) {
+                    emit(opcode, ((IdExpr) bin.left).slot, operandOf(bin.right), -1);
+                    return size - 1;
+                }
+            }
+        }
+        compileExpr(cond);
+        int jump = emitJump(when ? Opcode.JUMP_IF_TRUE : Opcode.JUMP_IF_FALSE);
+        pop();
+        return jump;
+    }
+
+    // Opcode of 'op' with its right operand folded in, or -1
+    private int fusedOpcodeFor(Operator op, Expr right) {
+        if (right instanceof IntLiteral) {
+            switch (op) {
+                case ADD: return Opcode.ADD_I;
+                case SUB: return Opcode.SUB_I;
+                case MUL: return Opcode.MUL_I;
+                case LT:  return Opcode.LT_I;
+                case GT:  return Opcode.GT_I;
+                case EQ:  return Opcode.EQ_I;
+                default:  return -1;
+            }
+        }
+        if (right instanceof IdExpr && isLoadable((IdExpr) right)) {
+            switch (op) {
+                case ADD: return Opcode.ADD_L;
+                case SUB: return Opcode.SUB_L;
+                case MUL: return Opcode.MUL_L;
+                case LT:  return Opcode.LT_L;
+                case GT:  return Opcode.GT_L;
+                case EQ:  return Opcode.EQ_L;
+                default:  return -1;
+            }
+        }
+        return -1;
+    }
+
+    private int operandOf(Expr right) {
+        return right instanceof IntLiteral ? ((IntLiteral) right).value : ((IdExpr) right).slot;
+    }
+
+    // Reachable with a plain LOAD: a defined local of the current frame
+    // that has a value
+    private boolean isLoadable(IdExpr id) {
+        return (!inFunction || id.depth == 0) && isVisible(id.depth, id.slot)
+                && !(isLocal(id.depth, id.slot) && unassigned.get(id.slot));
+    }
+
+    // Takes the locals a statement assigns off 'unassigned'
+    private void assignedIn(Stmt stmt) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                if (isLocal(assign.depth, assign.slot)) unassigned.clear(assign.slot);
+                break;
+            }
+            case StmtKind.BLOCK:
+                for (Stmt s : ((BlockStmt) stmt).statements) assignedIn(s);
+                break;
+            case StmtKind.IF:
+                assignedIn(((IfStmt) stmt).t);
+                if (((IfStmt) stmt).e != null) assignedIn(((IfStmt) stmt).e);
+                break;
+            case StmtKind.LOOP:
+                assignedIn(((LoopStmt) stmt).body);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // --- Variable access ---
+
+    // A global that never got defined at run time (its unit failed after
+    // resolution) fails when reached, like the Interpreter's lookup. A
+    // function's own slot is defined right after it is compiled.
+    private boolean isLocal(int depth, int slot) {
+        return inFunction ? depth == 0 : topLocals.get(slot);
+    }
+
+    private boolean isVisible(int depth, int slot) {
+        return isLocal(depth, slot) || vm.isDefined(slot) || slot == functionSlot;
+    }
+
+    // A 'var' local that no path to here assigns has no value yet, and fails
+    // when read, as the Interpreter's Uninitialized does. One that only some
+    // paths assign reads as 0 on the others: every value here is an int,
+    // with nothing left over to mark it unset.
+    private void emitLoad(int depth, int slot, String name) {
+        if (!isVisible(depth, slot)) {
+            emit(Opcode.FAIL, constant("Variable named " + name + " Not declared in this program"));
+        } else if (isLocal(depth, slot) && unassigned.get(slot)) {
+            emit(Opcode.FAIL, constant("Variable named " + name + " has no value"));
+        } else {
+            emit(inFunction && depth != 0 ? Opcode.LOAD_GLOBAL : Opcode.LOAD, slot);
+        }
+        push();
+    }
+
+    private void emitStore(int depth, int slot, String name) {
+        if (!isVisible(depth, slot)) {
+            emit(Opcode.FAIL, constant("Variable named " + name + " Not declared in this program"));
+        } else {
+            emit(inFunction && depth != 0 ? Opcode.STORE_GLOBAL : Opcode.STORE, slot);
+        }
+        pop();
+    }
+
+    private void emitDefault() {
+        // 0 is both the int default and false
+        emit(Opcode.PUSH, 0);
+        push();
+    }
+
+    // --- Emission helpers ---
+
+    private void emit(int... words) {
+        if (size + words.length > code.length) code = Arrays.copyOf(code, code.length * 2 + words.length);
+        for (int w : words) code[size++] = w;
+    }
+
+    private int emitJump(int opcode) {
+        emit(opcode, -1);
+        return size - 1;
+    }
+
+    private void patch(int operand) {
+        code[operand] = size;
+    }
+
+    private int constant(Object value) {
+        consts.add(value);
+        return consts.size() - 1;
+    }
+
+    private void push() {
+        stackDepth++;
+        maxStack = Math.max(maxStack, stackDepth);
+    }
+
+    private void pop() {
+        stackDepth--;
+    }
+}
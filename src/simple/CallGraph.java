@@ -0,0 +1,170 @@
+package simple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+// Which functions of a ProgramNode refer to which others, by name, for
+// TypeChecker.checkProgram. Mutually recursive functions form a strongly
+// connected component and are checked together; a component is checked
+// after every component it refers to. Shadowing is ignored, which can
+// only add edges.
+final class CallGraph {
+    private final List<FuncDef> fns;
+    private final int[][] edges; // per function, the functions it refers to
+
+    CallGraph(List<FuncDef> fns) {
+        this.fns = fns;
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < fns.size(); i++) index.put(fns.get(i).name, i);
+        edges = new int[fns.size()][];
+        for (int i = 0; i < fns.size(); i++) {
+            Set<Integer> targets = new TreeSet<>();
+            collect(fns.get(i).body, name -> {
+                Integer target = index.get(name);
+                if (target != null) targets.add(target);
+            });
+            edges[i] = targets.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // The components by level. A component's level is one more than the
+    // highest level among those it refers to, so the components of one
+    // level do not refer to each other.
+    List<List<List<FuncDef>>> levels() {
+        int[] component = components();
+        int count = 0;
+        for (int c : component) count = Math.max(count, c + 1);
+        List<List<Integer>> members = new ArrayList<>();
+        for (int c = 0; c < count; c++) members.add(new ArrayList<>());
+        for (int v = 0; v < fns.size(); v++) members.get(component[v]).add(v);
+
+        // Components are numbered after all those they refer to (see components())
+        int[] level = new int[count];
+        List<List<List<FuncDef>>> levels = new ArrayList<>();
+        for (int c = 0; c < count; c++) {
+            List<FuncDef> defs = new ArrayList<>();
+            for (int v : members.get(c)) {
+                defs.add(fns.get(v));
+                for (int w : edges[v]) {
+                    if (component[w] != c) level[c] = Math.max(level[c], level[component[w]] + 1);
+                }
+            }
+            while (levels.size() <= level[c]) levels.add(new ArrayList<>());
+            levels.get(level[c]).add(defs);
+        }
+        return levels;
+    }
+
+    // Tarjan's algorithm, with explicit stacks: a long call chain in a
+    // generated program must not overflow the Java stack. Returns each
+    // function's component; components are numbered in reverse topological
+    // order.
+    private int[] components() {
+        int n = fns.size();
+        int[] index = new int[n], low = new int[n], component = new int[n], next = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n], calls = new int[n];
+        int sp = 0, cp = 0, counter = 0, components = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            index[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            calls[cp++] = root;
+            while (cp > 0) {
+                int v = calls[cp - 1];
+                if (next[v] < edges[v].length) {
+                    int w = edges[v][next[v]++];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        calls[cp++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                cp--;
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        component[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+                if (cp > 0) low[calls[cp - 1]] = Math.min(low[calls[cp - 1]], low[v]);
+            }
+        }
+        return component;
+    }
+
+    // Every name a function body refers to, for the TypeChecker's record of
+    // which functions depend on a top-level definition
+    static Set<String> references(Stmt body) {
+        Set<String> names = new HashSet<>();
+        collect(body, names::add);
+        return names;
+    }
+
+    private static void collect(Stmt stmt, Consumer<String> names) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN:
+                names.accept(((AssignStmt) stmt).id);
+                collect(((AssignStmt) stmt).expr, names);
+                break;
+            case StmtKind.BLOCK:
+                for (Stmt s : ((BlockStmt) stmt).statements) collect(s, names);
+                break;
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                collect(ifStmt.conditional, names);
+                collect(ifStmt.t, names);
+                if (ifStmt.e != null) collect(ifStmt.e, names);
+                break;
+            }
+            case StmtKind.LOOP:
+                collect(((LoopStmt) stmt).conditional, names);
+                collect(((LoopStmt) stmt).body, names);
+                break;
+            case StmtKind.RETURN:
+                collect(((ReturnStmt) stmt).expr, names);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void collect(Expr expr, Consumer<String> names) {
+        switch (expr.kind) {
+            case ExprKind.ID:
+                names.accept(((IdExpr) expr).name);
+                break;
+            case ExprKind.BINARY:
+                collect(((BinaryExpr) expr).left, names);
+                collect(((BinaryExpr) expr).right, names);
+                break;
+            case ExprKind.CALL: {
+                FuncCall call = (FuncCall) expr;
+                names.accept(call.name);
+                for (Expr arg : call.args) collect(arg, names);
+                break;
+            }
+            case ExprKind.INLINED_CALL:
+                collect(((InlinedCall) expr).call, names);
+                break;
+            default:
+                break;
+        }
+    }
+}
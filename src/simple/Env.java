@@ -1,5 +1,6 @@
 package simple;
 
+import java.lang.invoke.MethodHandle;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -8,21 +9,35 @@ import java.util.Map;
 abstract class EnvItem{}
 
 class IntVal extends EnvItem{
+    private static final IntVal[] CACHE = new IntVal[256]; // -128..127, like Integer.valueOf
+    static {
+        for (int i = 0; i < CACHE.length; i++) CACHE[i] = new IntVal(i - 128);
+    }
+
     final int value;
 
     public IntVal(int value) {
         this.value = value;
     }
+    static IntVal of(int value) {
+        return value >= -128 && value <= 127 ? CACHE[value + 128] : new IntVal(value);
+    }
     public String toString(){
         return String.valueOf(value);
     }
 }
 class BoolVal extends EnvItem{
+    static final BoolVal TRUE = new BoolVal(true);
+    static final BoolVal FALSE = new BoolVal(false);
+
     final boolean value;
 
-    public BoolVal(boolean value) {
+    private BoolVal(boolean value) {
         this.value = value;
     }
+    static BoolVal of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
     public String toString(){
         return String.valueOf(value);
     }
@@ -35,33 +50,49 @@ class UninitializedVal extends EnvItem {
 
 class Closure extends EnvItem{
     final FuncDef def;
-    final Env funcEnv;
+    final Env funcEnv;  // BigStep
+    final Frame frame;  // Interpreter
+    MethodHandle compiled;
+    StmtNode tree;      // body built by the TreeInterpreter
+    MemoTable memo;     // Interpreter results, while PurityAnalysis finds it pure
+    // Tiering, when the Interpreter defined it (see Interpreter.promote)
+    Interpreter interpreter; // node trees call back into it (see CallNode)
+    long calls, backEdges;
+    long inlinedCalls;  // run as the Optimizer's inlined copy, guard passed
+    long nextTierAt;    // hotness at which it is promoted again
     public Closure(FuncDef def, Env funcEnv) {
         this.def = def;
         this.funcEnv = funcEnv;
+        this.frame = null;
+    }
+    public Closure(FuncDef def, Frame frame) {
+        this.def = def;
+        this.funcEnv = null;
+        this.frame = frame;
     }
     public String toString(){
         return "function: " + def.name;
     }
 } 
-// Custom exception for handling 'return' control flow.
-class ReturnValueException extends RuntimeException {
-    final EnvItem value;
-    public ReturnValueException(EnvItem val) { this.value = val; }
-}  
 
 public class Env{
     private final Deque<Map<String, EnvItem>> scopeStack;
+    private final Map<String, EnvItem> globals;
     public Env(){
         this.scopeStack = new LinkedList<>();
-        enterScope();
+        this.globals = new HashMap<>();
+        scopeStack.push(globals);
     }
-    //copy constructor for Function environment
-    public Env(Env other) {
+    private Env(Map<String, EnvItem> globals) {
         this.scopeStack = new LinkedList<>();
-        for (Map<String, EnvItem> scope : other.scopeStack) {
-            this.scopeStack.addLast(new HashMap<>(scope));
-        }
+        this.globals = globals;
+        scopeStack.push(globals);
+    }
+    // Env over the same global scope and nothing else. Functions are only
+    // defined at top level, so this is all a closure needs to capture, and
+    // each call gets a fresh one for its own scopes.
+    public Env globalView() {
+        return new Env(globals);
     }
     public void enterScope(){
         scopeStack.push(new HashMap<>());
@@ -91,8 +122,10 @@ public class Env{
         if (scopeStack.isEmpty()) {
             throw new IllegalStateException("No scope is active.");
         }
-        // Throws an error if the variable is already declared in the current scope.
-        if (scopeStack.peek().containsKey(name)) {
+        // Throws an error if the variable is already declared in the current
+        // scope, unless that is the global one: a top-level definition
+        // replaces the earlier one (the TypeChecker has allowed it).
+        if (scopeStack.peek() != globals && scopeStack.peek().containsKey(name)) {
             throw new RuntimeException("Variable '" + name + "' is already defined in this scope.");
         }
         scopeStack.peek().put(name, value);
@@ -103,8 +136,7 @@ public class Env{
         sb.append("{\n");
         // Only prints the outermost (global) scope
         if (!scopeStack.isEmpty()) {
-            Map<String, EnvItem> globalScope = scopeStack.getLast();
-            for (Map.Entry<String, EnvItem> entry : globalScope.entrySet()) {
+            for (Map.Entry<String, EnvItem> entry : globals.entrySet()) {
                 sb.append("  ").append(entry.getKey()).append(" = ").append(entry.getValue().toString()).append("\n");
             }
         }
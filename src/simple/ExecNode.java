@@ -0,0 +1,629 @@
+package simple;
+
+// --- Executable node tree for the TreeInterpreter ---
+// Built from a resolved AST by TreeInterpreter. Nodes that start out
+// uninitialized look at the values they see on their first execution and
+// replace themselves in their parent with a specialized node; a specialized
+// node whose assumption breaks replaces itself with the generic one.
+
+abstract class ExecNode {
+    ExecNode parent;
+
+    <T extends ExecNode> T adopt(T child) {
+        if (child != null) child.parent = this;
+        return child;
+    }
+
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        throw new IllegalStateException(getClass().getSimpleName() + " has no replaceable children");
+    }
+
+    final <T extends ExecNode> T replace(T newNode) {
+        newNode.parent = parent;
+        parent.replaceChild(this, newNode);
+        return newNode;
+    }
+}
+
+// Thrown by executeInt/executeBool when the value has another kind; carries the value.
+class UnexpectedResultException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    final EnvItem value;
+    UnexpectedResultException(EnvItem value) {
+        super(null, null, false, false); // control flow only, no stack trace
+        this.value = value;
+    }
+}
+
+abstract class ExprNode extends ExecNode {
+    abstract EnvItem execute(Frame f);
+
+    int executeInt(Frame f) {
+        EnvItem v = execute(f);
+        if (v instanceof IntVal) return ((IntVal) v).value;
+        throw new UnexpectedResultException(v);
+    }
+
+    boolean executeBool(Frame f) {
+        EnvItem v = execute(f);
+        if (v instanceof BoolVal) return ((BoolVal) v).value;
+        throw new UnexpectedResultException(v);
+    }
+
+    // executeBool on a value the TypeChecker made boolean, which may still
+    // be boxed. Anything else, such as a 'var' that was never assigned,
+    // fails the cast as it does in the Interpreter.
+    static boolean asBool(ExprNode node, Frame f) {
+        try {
+            return node.executeBool(f);
+        } catch (UnexpectedResultException e) {
+            return ((BoolVal) e.value).value;
+        }
+    }
+}
+
+abstract class StmtNode extends ExecNode {
+    // Returns the value of a 'return', or null when execution falls through.
+    abstract EnvItem execute(Frame f);
+}
+
+// --- Literals and variables ---
+
+class IntLiteralNode extends ExprNode {
+    final int value;
+    final IntVal boxed;
+    IntLiteralNode(int value) {
+        this.value = value;
+        this.boxed = IntVal.of(value);
+    }
+    EnvItem execute(Frame f) { return boxed; }
+    int executeInt(Frame f) { return value; }
+}
+
+class BoolLiteralNode extends ExprNode {
+    final boolean value;
+    final BoolVal boxed;
+    BoolLiteralNode(boolean value) {
+        this.value = value;
+        this.boxed = BoolVal.of(value);
+    }
+    EnvItem execute(Frame f) { return boxed; }
+    boolean executeBool(Frame f) { return value; }
+}
+
+class ReadNode extends ExprNode {
+    final int depth, slot;
+    final String name;
+    ReadNode(int depth, int slot, String name) {
+        this.depth = depth;
+        this.slot = slot;
+        this.name = name;
+    }
+    EnvItem execute(Frame f) { return f.get(depth, slot, name); }
+
+    // Unboxed reads straight from the Frame's primitive slots, or from the
+    // shared box of a value the Frame keeps boxed
+    int executeInt(Frame f) {
+        Frame g = f.at(depth);
+        EnvItem v = slot < g.slots.length ? g.slots[slot] : null;
+        if (v == Frame.INT) return g.prims[slot];
+        if (v instanceof IntVal) return ((IntVal) v).value;
+        throw new UnexpectedResultException(execute(f));
+    }
+
+    boolean executeBool(Frame f) {
+        Frame g = f.at(depth);
+        EnvItem v = slot < g.slots.length ? g.slots[slot] : null;
+        if (v == Frame.BOOL) return g.prims[slot] != 0;
+        if (v instanceof BoolVal) return ((BoolVal) v).value;
+        throw new UnexpectedResultException(execute(f));
+    }
+}
+
+// --- Binary operators ---
+
+class UninitializedBinaryNode extends ExprNode {
+    final Operator op;
+    ExprNode left, right;
+    UninitializedBinaryNode(Operator op, ExprNode left, ExprNode right) {
+        this.op = op;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (left == oldChild) left = (ExprNode) newChild;
+        if (right == oldChild) right = (ExprNode) newChild;
+    }
+
+    EnvItem execute(Frame f) {
+        EnvItem l = left.execute(f);
+        EnvItem r = right.execute(f);
+        replace(specialize(l, r));
+        return GenericBinaryNode.apply(op, l, r);
+    }
+
+    private ExprNode specialize(EnvItem l, EnvItem r) {
+        ExprNode node = null;
+        if (l instanceof IntVal && r instanceof IntVal) node = specialize(op, Type.INTEGER, left, right);
+        else if (l instanceof BoolVal && r instanceof BoolVal) node = specialize(op, Type.BOOLEAN, left, right);
+        return node != null ? node : new GenericBinaryNode(op, left, right);
+    }
+
+    // The node for op on two operands of the given type, or null if there is none
+    static ExprNode specialize(Operator op, Type operands, ExprNode left, ExprNode right) {
+        // Always boolean, and never evaluated both sides first
+        if (op == Operator.AND) return new BoolAndNode(left, right);
+        if (op == Operator.OR) return new BoolOrNode(left, right);
+        if (operands == Type.INTEGER) {
+            switch (op) {
+                case ADD: return new IntAddNode(left, right);
+                case SUB: return new IntSubNode(left, right);
+                case MUL: return new IntMulNode(left, right);
+                case DIV: return new IntDivNode(left, right);
+                case LT:  return new IntLessNode(left, right);
+                case GT:  return new IntGreaterNode(left, right);
+                case EQ:  return new IntEqualNode(left, right);
+                default:  break;
+            }
+        } else if (operands == Type.BOOLEAN) {
+            switch (op) {
+                case EQ:  return new BoolEqualNode(left, right);
+                default:  break;
+            }
+        }
+        return null;
+    }
+}
+
+class GenericBinaryNode extends ExprNode {
+    final Operator op;
+    ExprNode left, right;
+    GenericBinaryNode(Operator op, ExprNode left, ExprNode right) {
+        this.op = op;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (left == oldChild) left = (ExprNode) newChild;
+        if (right == oldChild) right = (ExprNode) newChild;
+    }
+
+    EnvItem execute(Frame f) {
+        return apply(op, left.execute(f), right.execute(f));
+    }
+
+    // Same semantics as Interpreter.evaluate(BinaryExpr)
+    static EnvItem apply(Operator op, EnvItem l, EnvItem r) {
+        switch (op) {
+            case ADD: return IntVal.of(((IntVal) l).value + ((IntVal) r).value);
+            case SUB: return IntVal.of(((IntVal) l).value - ((IntVal) r).value);
+            case MUL: return IntVal.of(((IntVal) l).value * ((IntVal) r).value);
+            case DIV: return IntVal.of(((IntVal) l).value / ((IntVal) r).value);
+            case AND: return BoolVal.of(((BoolVal) l).value && ((BoolVal) r).value);
+            case OR:  return BoolVal.of(((BoolVal) l).value || ((BoolVal) r).value);
+            case GT:  return BoolVal.of(((IntVal) l).value > ((IntVal) r).value);
+            case LT:  return BoolVal.of(((IntVal) l).value < ((IntVal) r).value);
+            case EQ:
+                if (l instanceof IntVal) return BoolVal.of(((IntVal) l).value == ((IntVal) r).value);
+                return BoolVal.of(((BoolVal) l).value == ((BoolVal) r).value);
+            default: throw new RuntimeException("Unknown Op: " + op);
+        }
+    }
+}
+
+// Specialized on two int operands
+abstract class IntOperandsNode extends ExprNode {
+    final Operator op;
+    ExprNode left, right;
+    IntOperandsNode(Operator op, ExprNode left, ExprNode right) {
+        this.op = op;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (left == oldChild) left = (ExprNode) newChild;
+        if (right == oldChild) right = (ExprNode) newChild;
+    }
+
+    // An operand was not an int: rewrite to the generic node and finish this evaluation there.
+    EnvItem fallBack(EnvItem l, EnvItem r) {
+        replace(new GenericBinaryNode(op, left, right));
+        return GenericBinaryNode.apply(op, l, r);
+    }
+
+    // Evaluates both operands as ints, or falls back and throws the generic result.
+    int leftInt(Frame f) {
+        try {
+            return left.executeInt(f);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(fallBack(e.value, right.execute(f)));
+        }
+    }
+
+    int rightInt(Frame f, int l) {
+        try {
+            return right.executeInt(f);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(fallBack(IntVal.of(l), e.value));
+        }
+    }
+}
+
+abstract class IntArithmeticNode extends IntOperandsNode {
+    IntArithmeticNode(Operator op, ExprNode left, ExprNode right) { super(op, left, right); }
+
+    abstract int apply(int l, int r);
+
+    int executeInt(Frame f) {
+        int l = leftInt(f);
+        return apply(l, rightInt(f, l));
+    }
+
+    EnvItem execute(Frame f) {
+        try {
+            return IntVal.of(executeInt(f));
+        } catch (UnexpectedResultException e) {
+            return e.value;
+        }
+    }
+}
+
+class IntAddNode extends IntArithmeticNode {
+    IntAddNode(ExprNode left, ExprNode right) { super(Operator.ADD, left, right); }
+    int apply(int l, int r) { return l + r; }
+}
+
+class IntSubNode extends IntArithmeticNode {
+    IntSubNode(ExprNode left, ExprNode right) { super(Operator.SUB, left, right); }
+    int apply(int l, int r) { return l - r; }
+}
+
+class IntMulNode extends IntArithmeticNode {
+    IntMulNode(ExprNode left, ExprNode right) { super(Operator.MUL, left, right); }
+    int apply(int l, int r) { return l * r; }
+}
+
+class IntDivNode extends IntArithmeticNode {
+    IntDivNode(ExprNode left, ExprNode right) { super(Operator.DIV, left, right); }
+    int apply(int l, int r) { return l / r; }
+}
+
+abstract class IntCompareNode extends IntOperandsNode {
+    IntCompareNode(Operator op, ExprNode left, ExprNode right) { super(op, left, right); }
+
+    abstract boolean apply(int l, int r);
+
+    boolean executeBool(Frame f) {
+        int l = leftInt(f);
+        return apply(l, rightInt(f, l));
+    }
+
+    EnvItem execute(Frame f) {
+        try {
+            return BoolVal.of(executeBool(f));
+        } catch (UnexpectedResultException e) {
+            return e.value;
+        }
+    }
+}
+
+class IntLessNode extends IntCompareNode {
+    IntLessNode(ExprNode left, ExprNode right) { super(Operator.LT, left, right); }
+    boolean apply(int l, int r) { return l < r; }
+}
+
+class IntGreaterNode extends IntCompareNode {
+    IntGreaterNode(ExprNode left, ExprNode right) { super(Operator.GT, left, right); }
+    boolean apply(int l, int r) { return l > r; }
+}
+
+class IntEqualNode extends IntCompareNode {
+    IntEqualNode(ExprNode left, ExprNode right) { super(Operator.EQ, left, right); }
+    boolean apply(int l, int r) { return l == r; }
+}
+
+// Specialized on two boolean operands
+abstract class BoolOperandsNode extends ExprNode {
+    final Operator op;
+    ExprNode left, right;
+    BoolOperandsNode(Operator op, ExprNode left, ExprNode right) {
+        this.op = op;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (left == oldChild) left = (ExprNode) newChild;
+        if (right == oldChild) right = (ExprNode) newChild;
+    }
+
+    abstract boolean apply(boolean l, boolean r);
+
+    boolean executeBool(Frame f) {
+        boolean l;
+        try {
+            l = left.executeBool(f);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(fallBack(e.value, right.execute(f)));
+        }
+        try {
+            return apply(l, right.executeBool(f));
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(fallBack(BoolVal.of(l), e.value));
+        }
+    }
+
+    EnvItem execute(Frame f) {
+        try {
+            return BoolVal.of(executeBool(f));
+        } catch (UnexpectedResultException e) {
+            return e.value;
+        }
+    }
+
+    private EnvItem fallBack(EnvItem l, EnvItem r) {
+        replace(new GenericBinaryNode(op, left, right));
+        return GenericBinaryNode.apply(op, l, r);
+    }
+}
+
+class BoolEqualNode extends BoolOperandsNode {
+    BoolEqualNode(ExprNode left, ExprNode right) { super(Operator.EQ, left, right); }
+    boolean apply(boolean l, boolean r) { return l == r; }
+}
+
+// && and ||: the right operand only runs when the left one does not decide.
+// The TypeChecker made both boolean; a boxed one is just unboxed.
+abstract class ShortCircuitNode extends ExprNode {
+    ExprNode left, right;
+    ShortCircuitNode(ExprNode left, ExprNode right) {
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (left == oldChild) left = (ExprNode) newChild;
+        if (right == oldChild) right = (ExprNode) newChild;
+    }
+
+    EnvItem execute(Frame f) { return BoolVal.of(executeBool(f)); }
+}
+
+class BoolAndNode extends ShortCircuitNode {
+    BoolAndNode(ExprNode left, ExprNode right) { super(left, right); }
+    boolean executeBool(Frame f) { return asBool(left, f) && asBool(right, f); }
+}
+
+class BoolOrNode extends ShortCircuitNode {
+    BoolOrNode(ExprNode left, ExprNode right) { super(left, right); }
+    boolean executeBool(Frame f) { return asBool(left, f) || asBool(right, f); }
+}
+
+// --- Calls ---
+
+class CallNode extends ExprNode {
+    final int depth, slot;
+    final String name;
+    final ExprNode[] args;
+    CallNode(int depth, int slot, String name, ExprNode[] args) {
+        this.depth = depth;
+        this.slot = slot;
+        this.name = name;
+        this.args = args;
+        for (ExprNode arg : args) adopt(arg);
+    }
+
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == oldChild) args[i] = (ExprNode) newChild;
+        }
+    }
+
+    EnvItem execute(Frame f) {
+        Closure closure = (Closure) f.get(depth, slot, name);
+        if (closure.interpreter != null) {
+            // A function tiered by the Interpreter, called from a node tree it
+            // built: one on the tree runs right here, the rest go back to it
+            closure.interpreter.count(closure);
+            if (closure.tree == null) {
+                EnvItem[] values = new EnvItem[args.length];
+                for (int i = 0; i < args.length; i++) values[i] = args[i].execute(f);
+                return closure.interpreter.call(closure, name, values);
+            }
+        } else if (closure.tree == null) {
+            closure.tree = TreeInterpreter.build(closure.def.body);
+        }
+        Frame callee = new Frame(closure.frame, closure.def.frameSize);
+        for (int i = 0; i < args.length; i++) callee.declare(i, args[i].execute(f));
+        EnvItem result = closure.tree.execute(callee);
+        if (result == null) throw new RuntimeException("Function " + name + " finished without return.");
+        return result;
+    }
+}
+
+// Guarded body of an inlined call (see InlinedCall)
+class InlinedCallNode extends ExprNode {
+    final int depth, slot;
+    final String name;
+    final FuncDef target;
+    ExprNode body, call;
+    InlinedCallNode(int depth, int slot, String name, FuncDef target, ExprNode body, ExprNode call) {
+        this.depth = depth;
+        this.slot = slot;
+        this.name = name;
+        this.target = target;
+        this.body = adopt(body);
+        this.call = adopt(call);
+    }
+
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (body == oldChild) body = (ExprNode) newChild;
+        if (call == oldChild) call = (ExprNode) newChild;
+    }
+
+    private ExprNode select(Frame f) {
+        EnvItem callee = f.get(depth, slot, name);
+        if (!(callee instanceof Closure) || ((Closure) callee).def != target) return call;
+        ((Closure) callee).inlinedCalls++;
+        return body;
+    }
+
+    EnvItem execute(Frame f) { return select(f).execute(f); }
+    int executeInt(Frame f) { return select(f).executeInt(f); }
+    boolean executeBool(Frame f) { return select(f).executeBool(f); }
+}
+
+// --- Statements ---
+
+class DeclareNode extends StmtNode {
+    final int slot;
+    final Type type;
+    DeclareNode(int slot, Type type) {
+        this.slot = slot;
+        this.type = type;
+    }
+    EnvItem execute(Frame f) {
+        if (type == Type.INTEGER) f.declareInt(slot, 0);
+        else if (type == Type.BOOLEAN) f.declareBool(slot, false);
+        else f.declare(slot, new UninitializedVal());
+        return null;
+    }
+}
+
+// Assignment of any kind of value; also what a specialized write falls back to
+class WriteNode extends StmtNode {
+    final int depth, slot;
+    final String name;
+    ExprNode value;
+    WriteNode(int depth, int slot, String name, ExprNode value) {
+        this.depth = depth;
+        this.slot = slot;
+        this.name = name;
+        this.value = adopt(value);
+    }
+    void replaceChild(ExecNode oldChild, ExecNode newChild) { value = (ExprNode) newChild; }
+    EnvItem execute(Frame f) {
+        f.set(depth, slot, name, value.execute(f));
+        return null;
+    }
+}
+
+// Specializes on the kind of the first value written
+class UninitializedWriteNode extends WriteNode {
+    UninitializedWriteNode(int depth, int slot, String name, ExprNode value) { super(depth, slot, name, value); }
+    EnvItem execute(Frame f) {
+        EnvItem v = value.execute(f);
+        f.set(depth, slot, name, v);
+        if (v instanceof IntVal) replace(new IntWriteNode(depth, slot, name, value));
+        else if (v instanceof BoolVal) replace(new BoolWriteNode(depth, slot, name, value));
+        else replace(new WriteNode(depth, slot, name, value));
+        return null;
+    }
+}
+
+class IntWriteNode extends WriteNode {
+    IntWriteNode(int depth, int slot, String name, ExprNode value) { super(depth, slot, name, value); }
+    EnvItem execute(Frame f) {
+        try {
+            f.setInt(depth, slot, name, value.executeInt(f));
+        } catch (UnexpectedResultException e) {
+            f.set(depth, slot, name, e.value);
+            replace(new WriteNode(depth, slot, name, value));
+        }
+        return null;
+    }
+}
+
+class BoolWriteNode extends WriteNode {
+    BoolWriteNode(int depth, int slot, String name, ExprNode value) { super(depth, slot, name, value); }
+    EnvItem execute(Frame f) {
+        try {
+            f.setBool(depth, slot, name, value.executeBool(f));
+        } catch (UnexpectedResultException e) {
+            f.set(depth, slot, name, e.value);
+            replace(new WriteNode(depth, slot, name, value));
+        }
+        return null;
+    }
+}
+
+class BlockNode extends StmtNode {
+    final StmtNode[] body;
+    BlockNode(StmtNode[] body) {
+        this.body = body;
+        for (StmtNode s : body) adopt(s);
+    }
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        for (int i = 0; i < body.length; i++) {
+            if (body[i] == oldChild) body[i] = (StmtNode) newChild;
+        }
+    }
+    EnvItem execute(Frame f) {
+        for (StmtNode s : body) {
+            EnvItem result = s.execute(f);
+            if (result != null) return result;
+        }
+        return null;
+    }
+}
+
+class IfNode extends StmtNode {
+    ExprNode cond;
+    StmtNode t, e;
+    IfNode(ExprNode cond, StmtNode t, StmtNode e) {
+        this.cond = adopt(cond);
+        this.t = adopt(t);
+        this.e = adopt(e);
+    }
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (cond == oldChild) cond = (ExprNode) newChild;
+        if (t == oldChild) t = (StmtNode) newChild;
+        if (e == oldChild) e = (StmtNode) newChild;
+    }
+    EnvItem execute(Frame f) {
+        if (ExprNode.asBool(cond, f)) return t.execute(f);
+        return e == null ? null : e.execute(f);
+    }
+}
+
+class WhileNode extends StmtNode {
+    ExprNode cond;
+    StmtNode body;
+    final Closure function; // counts its back-edges, if the Interpreter tiers it
+    WhileNode(ExprNode cond, StmtNode body, Closure function) {
+        this.cond = adopt(cond);
+        this.body = adopt(body);
+        this.function = function;
+    }
+    void replaceChild(ExecNode oldChild, ExecNode newChild) {
+        if (cond == oldChild) cond = (ExprNode) newChild;
+        if (body == oldChild) body = (StmtNode) newChild;
+    }
+    EnvItem execute(Frame f) {
+        while (ExprNode.asBool(cond, f)) {
+            if (function != null) function.backEdges++;
+            EnvItem result = body.execute(f);
+            if (result != null) return result;
+        }
+        return null;
+    }
+}
+
+class ReturnNode extends StmtNode {
+    ExprNode value;
+    ReturnNode(ExprNode value) { this.value = adopt(value); }
+    void replaceChild(ExecNode oldChild, ExecNode newChild) { value = (ExprNode) newChild; }
+    EnvItem execute(Frame f) { return value.execute(f); }
+}
+
+class DefineNode extends StmtNode {
+    final FuncDef def;
+    DefineNode(FuncDef def) { this.def = def; }
+    EnvItem execute(Frame f) {
+        f.declare(def.slot, new Closure(def, f));
+        return null;
+    }
+}
@@ -0,0 +1,148 @@
+package simple;
+
+import java.util.Arrays;
+
+// Slot-addressed runtime storage used by the Interpreter.
+// The Resolver gives every variable a (depth, slot) address: depth is the
+// number of parent hops from the current frame, slot is the array index.
+// Ints and booleans are kept unboxed in 'prims', with INT or BOOL in the
+// slot itself; any other value (closures, uninitialized) is kept in 'slots'.
+// get/set box and unbox at the boundary, so callers may use either form.
+// 'prims' is only allocated once an int outside IntVal's cache is stored:
+// until then ints and booleans go in 'slots' as their shared boxes, so a
+// call whose values stay small allocates one array, not two.
+public class Frame {
+    // Kind markers for slots whose value is in prims
+    static final EnvItem INT = new Unboxed();
+    static final EnvItem BOOL = new Unboxed();
+
+    private static final class Unboxed extends EnvItem {}
+
+    EnvItem[] slots;
+    int[] prims; // null until needed
+    final Frame parent;
+
+    // Global frame for the REPL; grows as new globals are declared.
+    public Frame() {
+        this(null, 16);
+    }
+
+    Frame(Frame parent, int size) {
+        this.parent = parent;
+        this.slots = new EnvItem[size];
+    }
+
+    Frame at(int depth) {
+        Frame f = this;
+        for (int i = 0; i < depth; i++) f = f.parent;
+        return f;
+    }
+
+    EnvItem get(int depth, int slot, String name) {
+        Frame f = at(depth);
+        EnvItem v = slot < f.slots.length ? f.slots[slot] : null;
+        if (v == null) throw notDeclared(name);
+        return f.box(slot, v);
+    }
+
+    // A slot of another kind fails with the same ClassCastException as the boxed casts
+    int getInt(int depth, int slot, String name) {
+        Frame f = at(depth);
+        EnvItem v = slot < f.slots.length ? f.slots[slot] : null;
+        if (v == INT) return f.prims[slot];
+        if (v == null) throw notDeclared(name);
+        return ((IntVal) v).value;
+    }
+
+    boolean getBool(int depth, int slot, String name) {
+        Frame f = at(depth);
+        EnvItem v = slot < f.slots.length ? f.slots[slot] : null;
+        if (v == BOOL) return f.prims[slot] != 0;
+        if (v == null) throw notDeclared(name);
+        return ((BoolVal) v).value;
+    }
+
+    void set(int depth, int slot, String name, EnvItem value) {
+        at(depth).checked(slot, name).store(slot, value);
+    }
+
+    void setInt(int depth, int slot, String name, int value) {
+        at(depth).checked(slot, name).putInt(slot, value);
+    }
+
+    void setBool(int depth, int slot, String name, boolean value) {
+        at(depth).checked(slot, name).putBool(slot, value);
+    }
+
+    // Declarations always target the current frame.
+    void declare(int slot, EnvItem value) {
+        ensure(slot);
+        store(slot, value);
+    }
+
+    void declareInt(int slot, int value) {
+        ensure(slot);
+        putInt(slot, value);
+    }
+
+    void declareBool(int slot, boolean value) {
+        ensure(slot);
+        putBool(slot, value);
+    }
+
+    private void ensure(int slot) {
+        if (slot >= slots.length) {
+            int size = Math.max(slot + 1, slots.length * 2);
+            slots = Arrays.copyOf(slots, size);
+            if (prims != null) prims = Arrays.copyOf(prims, size);
+        }
+    }
+
+    private void putInt(int slot, int value) {
+        if (prims == null) {
+            if (value >= -128 && value <= 127) {
+                slots[slot] = IntVal.of(value);
+                return;
+            }
+            prims = new int[slots.length];
+        }
+        slots[slot] = INT;
+        prims[slot] = value;
+    }
+
+    private void putBool(int slot, boolean value) {
+        if (prims == null) {
+            slots[slot] = BoolVal.of(value);
+            return;
+        }
+        slots[slot] = BOOL;
+        prims[slot] = value ? 1 : 0;
+    }
+
+    private Frame checked(int slot, String name) {
+        if (slot >= slots.length || slots[slot] == null) throw notDeclared(name);
+        return this;
+    }
+
+    private void store(int slot, EnvItem value) {
+        if (prims != null && value instanceof IntVal) {
+            slots[slot] = INT;
+            prims[slot] = ((IntVal) value).value;
+        } else if (prims != null && value instanceof BoolVal) {
+            slots[slot] = BOOL;
+            prims[slot] = ((BoolVal) value).value ? 1 : 0;
+        } else {
+            slots[slot] = value; // already boxed
+        }
+    }
+
+    private EnvItem box(int slot, EnvItem v) {
+        if (v == INT) return IntVal.of(prims[slot]);
+        if (v == BOOL) return BoolVal.of(prims[slot] != 0);
+        return v;
+    }
+
+    private static RuntimeException notDeclared(String name) {
+        return new RuntimeException("Variable named " + name + " Not declared in this program");
+    }
+}
@@ -0,0 +1,28 @@
+package simple;
+
+// How the Interpreter is running a function, for the REPL's :tiers. A
+// memoized function is not promoted while it has its MemoTable; its calls
+// include those the table answered. Calls the Optimizer inlined run the
+// copy in the caller and are counted apart: they promote nothing.
+public class FunctionProfile {
+    public enum Tier { INTERPRETED, MEMOIZED, TREE, COMPILED }
+
+    private final Tier tier;
+    private final long calls, inlinedCalls, backEdges;
+
+    FunctionProfile(Closure closure) {
+        this.tier = closure.compiled != null ? Tier.COMPILED : closure.tree != null ? Tier.TREE
+                : closure.memo != null ? Tier.MEMOIZED : Tier.INTERPRETED;
+        this.calls = closure.calls;
+        this.inlinedCalls = closure.inlinedCalls;
+        this.backEdges = closure.backEdges;
+    }
+
+    public Tier tier() { return tier; }
+
+    public long calls() { return calls; }
+
+    public long inlinedCalls() { return inlinedCalls; }
+
+    public long backEdges() { return backEdges; }
+}
@@ -1,18 +1,44 @@
 package simple;
 
-import java.util.ArrayList;
+import java.lang.invoke.MethodHandle;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Interpreter {
+    // Tiers: every function starts here. Once its hotness (calls, plus loop
+    // back-edges over BACK_EDGES_PER_CALL) reaches the tree threshold, its
+    // body is built into a TreeInterpreter node tree; at the JIT threshold
+    // it is handed to the JitCompiler, and stays where it is if that
+    // declines it. Functions with a tail call skip the tree, which nests a
+    // Java frame per call where run() does not; memoized functions are not
+    // promoted while their MemoTable is in use.
+    // A loop, top-level or not, is replaced on the stack by its node tree
+    // after as many back-edges as a function would need to get there.
+    // Node trees count back-edges too, so a function whose loops stay hot
+    // on the tree still reaches the JIT; compiled code counts nothing.
+    static final int DEFAULT_TREE_THRESHOLD = 100;
+    static final int DEFAULT_JIT_THRESHOLD = 1000;
+    static final int BACK_EDGES_PER_CALL = 10;
+    private int treeThreshold = DEFAULT_TREE_THRESHOLD;
+    private int jitThreshold = DEFAULT_JIT_THRESHOLD;
+    private int osrThreshold = DEFAULT_TREE_THRESHOLD * BACK_EDGES_PER_CALL;
 
-    // Helper to get default values for typed declarations (int x;)
-    private EnvItem defaultFor(Type t) {
-        if (t == Type.INTEGER) return new IntVal(0);
-        if (t == Type.BOOLEAN) return new BoolVal(false);
-        return new UninitializedVal(); // Should not happen for typed decls, but safe fallback
-    }
+    // Result of a 'return f(...)': the call is left pending in the fields
+    // below for the enclosing FuncCall to run in its own frame.
+    private static final EnvItem TAIL_CALL = new UninitializedVal();
+    private Closure tailClosure;
+    private String tailName;
+    private EnvItem[] tailArgs;
+
+    private final PurityAnalysis purity = new PurityAnalysis();
+    private final Map<String, Closure> functions = new LinkedHashMap<>(); // latest definition of each
+    private Closure running; // whose body is executing, for its back-edges
 
-    public void evaluate(AstNode node, Env env) {
+    public void evaluate(AstNode node, Frame env) {
+        purity.observe(node);
+        if (node instanceof VarDecl) retire(functions.remove(((VarDecl) node).name)); // no longer a function
         if (node instanceof FuncDef) evaluate((FuncDef) node, env);
         else if (node instanceof Stmt) evaluate((Stmt) node, env);
         else if (node instanceof Expr) {
@@ -21,117 +47,407 @@ public class Interpreter {
         }
     }
 
+    // Tables of the functions currently memoized, by name
+    public Map<String, MemoTable> memoTables() {
+        return purity.tables();
+    }
+
+    // Tier and counters of every function defined, by name
+    public Map<String, FunctionProfile> profiles() {
+        Map<String, FunctionProfile> profiles = new HashMap<>();
+        for (Map.Entry<String, Closure> e : functions.entrySet()) {
+            profiles.put(e.getKey(), new FunctionProfile(e.getValue()));
+        }
+        return profiles;
+    }
+
+    // Hotness at which functions move to the node tree and to the JitCompiler
+    public void setTierThresholds(int tree, int jit) {
+        if (tree < 1 || jit < tree) throw new IllegalArgumentException("tier thresholds must satisfy 1 <= tree <= jit");
+        treeThreshold = tree;
+        jitThreshold = jit;
+        osrThreshold = tree * BACK_EDGES_PER_CALL;
+    }
+
     // --- Statements ---
+    // Each returns the value of a 'return' it executed, or null when
+    // execution falls through to the next statement.
 
-    private void evaluate(Stmt stmt, Env env) {
-        if (stmt instanceof BlockStmt) evaluate((BlockStmt) stmt, env);
-        else if (stmt instanceof VarDecl) evaluate((VarDecl) stmt, env);
-        else if (stmt instanceof IfStmt) evaluate((IfStmt) stmt, env);
-        else if (stmt instanceof LoopStmt) evaluate((LoopStmt) stmt, env);
-        else if (stmt instanceof AssignStmt) evaluate((AssignStmt) stmt, env);
-        else if (stmt instanceof ReturnStmt) evaluate((ReturnStmt) stmt, env);
-        else throw new UnsupportedOperationException("Unknown Stmt: " + stmt);
+    private EnvItem evaluate(Stmt stmt, Frame env) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN:
+                evaluate((AssignStmt) stmt, env);
+                return null;
+            case StmtKind.VAR_DECL:
+                evaluate((VarDecl) stmt, env);
+                return null;
+            case StmtKind.BLOCK: return evaluate((BlockStmt) stmt, env);
+            case StmtKind.IF: return evaluate((IfStmt) stmt, env);
+            case StmtKind.LOOP: return evaluate((LoopStmt) stmt, env);
+            case StmtKind.RETURN: return evaluate((ReturnStmt) stmt, env);
+            default: throw new UnsupportedOperationException("Unknown Stmt: " + stmt);
+        }
     }
 
-    private void evaluate(VarDecl decl, Env env) {
+    private void evaluate(VarDecl decl, Frame env) {
         // Fix for 'var x': If type is null (inferred), use UninitializedVal
-        if (decl.type == null) {
-            env.declare(decl.name, new UninitializedVal());
-        } else {
-            env.declare(decl.name, defaultFor(decl.type));
-        }
+        if (decl.type == Type.INTEGER) env.declareInt(decl.slot, 0);
+        else if (decl.type == Type.BOOLEAN) env.declareBool(decl.slot, false);
+        else env.declare(decl.slot, new UninitializedVal());
     }
 
-    private void evaluate(AssignStmt stmt, Env env) {
-        EnvItem val = evaluate(stmt.expr, env);
-        env.addVal(stmt.id, val);
+    private void evaluate(AssignStmt stmt, Frame env) {
+        EnvItem kind = kindOf(stmt.expr);
+        if (kind == Frame.INT) env.setInt(stmt.depth, stmt.slot, stmt.id, evalInt(stmt.expr, env));
+        else if (kind == Frame.BOOL) env.setBool(stmt.depth, stmt.slot, stmt.id, evalBool(stmt.expr, env));
+        else env.set(stmt.depth, stmt.slot, stmt.id, evaluate(stmt.expr, env));
     }
 
-    private void evaluate(BlockStmt block, Env env) {
-        env.enterScope();
-        try {
-            for (VarDecl d : block.declarations) evaluate(d, env);
-            for (Stmt s : block.statements) evaluate(s, env);
-        } finally {
-            env.exitScope();
+    private EnvItem evaluate(BlockStmt block, Frame env) {
+        // Block locals already own their slots in the enclosing frame (see Resolver).
+        // Indexed loops: no Iterator per block execution
+        for (int i = 0; i < block.declarations.size(); i++) evaluate(block.declarations.get(i), env);
+        for (int i = 0; i < block.statements.size(); i++) {
+            EnvItem ret = evaluate(block.statements.get(i), env);
+            if (ret != null) return ret;
         }
+        return null;
     }
 
-    private void evaluate(IfStmt stmt, Env env) {
-        BoolVal cond = (BoolVal) evaluate(stmt.conditional, env);
-        if (cond.value) evaluate(stmt.t, env);
-        else if (stmt.e != null) evaluate(stmt.e, env);
+    private EnvItem evaluate(IfStmt stmt, Frame env) {
+        if (evalBool(stmt.conditional, env)) return evaluate(stmt.t, env);
+        if (stmt.e != null) return evaluate(stmt.e, env);
+        return null;
     }
 
-    private void evaluate(LoopStmt stmt, Env env) {
-        while (((BoolVal) evaluate(stmt.conditional, env)).value) {
-            evaluate(stmt.body, env);
+    private EnvItem evaluate(LoopStmt stmt, Frame env) {
+        if (stmt.osr != null) return stmt.osr.execute(env);
+        Closure function = running;
+        int backEdges = 0;
+        while (evalBool(stmt.conditional, env)) {
+            if (function != null) function.backEdges++;
+            EnvItem ret = evaluate(stmt.body, env);
+            if (ret != null) return ret;
+            if (++backEdges == osrThreshold && !hasTailCall(stmt.body)) {
+                // On-stack replacement: the node tree reads and writes the
+                // same Frame, so it carries on from the current iteration
+                stmt.osr = TreeInterpreter.build(stmt, function);
+                return stmt.osr.execute(env);
+            }
         }
+        return null;
     }
 
-    private void evaluate(ReturnStmt stmt, Env env) {
-        throw new ReturnValueException(evaluate(stmt.expr, env));
+    private EnvItem evaluate(ReturnStmt stmt, Frame env) {
+        if (!(stmt.expr instanceof FuncCall)) return evaluate(stmt.expr, env);
+
+        FuncCall call = (FuncCall) stmt.expr;
+        Closure closure = callee(call, env);
+        if (closure.compiled != null) return invokeCompiled(closure, call, env);
+        EnvItem[] args = new EnvItem[call.args.size()];
+        for (int i = 0; i < args.length; i++) args[i] = evaluate(call.args.get(i), env);
+        tailClosure = closure;
+        tailName = call.name;
+        tailArgs = args;
+        return TAIL_CALL;
     }
 
-    private void evaluate(FuncDef def, Env env) {
-        env.declare(def.name, new Closure(def, new Env(env)));
+    private void evaluate(FuncDef def, Frame env) {
+        // Free variables are globals, shared in place (see Resolver)
+        Closure closure = new Closure(def, env);
+        closure.interpreter = this;
+        closure.nextTierAt = treeThreshold;
+        env.declare(def.slot, closure);
+        retire(functions.put(def.name, closure));
+        purity.define(closure);
         // Note: The REPL App.java prints the type info, so we don't need to print here.
     }
 
+    // A function whose name was rebound, but which may still be called
+    // through a value: compiled code calls itself directly, where the body
+    // calls whatever the name holds now, so it goes back to the body
+    private static void retire(Closure old) {
+        if (old != null && old.def.freeVars.contains(old.def.name)) old.compiled = null;
+    }
+
     // --- Expressions ---
+    // evaluate() produces a boxed value; evalInt/evalBool produce the
+    // primitive directly where the context needs one, and are what keeps
+    // arithmetic, conditions and assignments allocation-free.
 
-    private EnvItem evaluate(Expr expr, Env env) {
-        if (expr instanceof IntLiteral) return new IntVal(((IntLiteral) expr).value);
-        if (expr instanceof BoolLiteral) return new BoolVal(((BoolLiteral) expr).value);
-        if (expr instanceof IdExpr) return env.getVal(((IdExpr) expr).name);
-        if (expr instanceof BinaryExpr) return evaluate((BinaryExpr) expr, env);
-        if (expr instanceof FuncCall) return evaluate((FuncCall) expr, env);
-        throw new UnsupportedOperationException("Unknown Expr: " + expr);
+    // Frame.INT or Frame.BOOL if the TypeChecker resolved the expression to
+    // int or boolean; null otherwise.
+    private static EnvItem kindOf(Expr expr) {
+        Type type = expr.valueType();
+        if (type == Type.INTEGER) return Frame.INT;
+        if (type == Type.BOOLEAN) return Frame.BOOL;
+        return null;
     }
 
-    private EnvItem evaluate(BinaryExpr expr, Env env) {
-        EnvItem l = evaluate(expr.left, env);
-        EnvItem r = evaluate(expr.right, env);
-        
-        // We assume TypeChecker passed, so strict casting is safe-ish.
-        // For production, retain instanceof checks.
-        
+    private int evalInt(Expr expr, Frame env) {
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL: return ((IntLiteral) expr).value;
+            case ExprKind.ID: {
+                IdExpr id = (IdExpr) expr;
+                return env.getInt(id.depth, id.slot, id.name);
+            }
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                switch (bin.op) {
+                    case ADD: return evalInt(bin.left, env) + evalInt(bin.right, env);
+                    case SUB: return evalInt(bin.left, env) - evalInt(bin.right, env);
+                    case MUL: return evalInt(bin.left, env) * evalInt(bin.right, env);
+                    case DIV: return evalInt(bin.left, env) / evalInt(bin.right, env);
+                    default: break;
+                }
+                break;
+            }
+            case ExprKind.INLINED_CALL: return evalInt(select((InlinedCall) expr, env), env);
+            default: break;
+        }
+        return ((IntVal) evaluate(expr, env)).value;
+    }
+
+    private boolean evalBool(Expr expr, Frame env) {
+        switch (expr.kind) {
+            case ExprKind.BOOL_LITERAL: return ((BoolLiteral) expr).value;
+            case ExprKind.ID: {
+                IdExpr id = (IdExpr) expr;
+                return env.getBool(id.depth, id.slot, id.name);
+            }
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                switch (bin.op) {
+                    case LT: return evalInt(bin.left, env) < evalInt(bin.right, env);
+                    case GT: return evalInt(bin.left, env) > evalInt(bin.right, env);
+                    case AND: return evalBool(bin.left, env) && evalBool(bin.right, env);
+                    case OR: return evalBool(bin.left, env) || evalBool(bin.right, env);
+                    case EQ: {
+                        EnvItem kind = kindOf(bin.left);
+                        if (kind == Frame.INT) return evalInt(bin.left, env) == evalInt(bin.right, env);
+                        if (kind == Frame.BOOL) return evalBool(bin.left, env) == evalBool(bin.right, env);
+                        break; // operand kind only known after evaluating it
+                    }
+                    default: break;
+                }
+                break;
+            }
+            case ExprKind.INLINED_CALL: return evalBool(select((InlinedCall) expr, env), env);
+            default: break;
+        }
+        return ((BoolVal) evaluate(expr, env)).value;
+    }
+
+    // The inlined body while the callee is still the function that was
+    // inlined, otherwise the original call
+    private static Expr select(InlinedCall inlined, Frame env) {
+        FuncCall call = inlined.call;
+        EnvItem callee = env.get(call.depth, call.slot, call.name);
+        if (!(callee instanceof Closure) || ((Closure) callee).def != inlined.target) return call;
+        ((Closure) callee).inlinedCalls++;
+        return inlined.body;
+    }
+
+    // Evaluates an argument straight into a parameter slot of a new frame
+    private void bind(Frame callee, int slot, Expr arg, Frame env) {
+        EnvItem kind = kindOf(arg);
+        if (kind == Frame.INT) callee.declareInt(slot, evalInt(arg, env));
+        else if (kind == Frame.BOOL) callee.declareBool(slot, evalBool(arg, env));
+        else callee.declare(slot, evaluate(arg, env));
+    }
+
+    private EnvItem evaluate(Expr expr, Frame env) {
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL: return IntVal.of(((IntLiteral) expr).value);
+            case ExprKind.BOOL_LITERAL: return BoolVal.of(((BoolLiteral) expr).value);
+            case ExprKind.ID: {
+                IdExpr id = (IdExpr) expr;
+                return env.get(id.depth, id.slot, id.name);
+            }
+            case ExprKind.BINARY: return evaluate((BinaryExpr) expr, env);
+            case ExprKind.CALL: return evaluate((FuncCall) expr, env);
+            case ExprKind.INLINED_CALL: return evaluate(select((InlinedCall) expr, env), env);
+            default: throw new UnsupportedOperationException("Unknown Expr: " + expr);
+        }
+    }
+
+    private EnvItem evaluate(BinaryExpr expr, Frame env) {
+        // Operands are evaluated unboxed; only the result is boxed
         switch (expr.op) {
-            case ADD: return new IntVal(((IntVal) l).value + ((IntVal) r).value);
-            case SUB: return new IntVal(((IntVal) l).value - ((IntVal) r).value);
-            case MUL: return new IntVal(((IntVal) l).value * ((IntVal) r).value);
-            case DIV: return new IntVal(((IntVal) l).value / ((IntVal) r).value);
-            case AND: return new BoolVal(((BoolVal) l).value && ((BoolVal) r).value);
-            case OR:  return new BoolVal(((BoolVal) l).value || ((BoolVal) r).value);
-            case GT:  return new BoolVal(((IntVal) l).value > ((IntVal) r).value);
-            case LT:  return new BoolVal(((IntVal) l).value < ((IntVal) r).value);
+            case ADD: case SUB: case MUL: case DIV:
+                return IntVal.of(evalInt(expr, env));
+            case AND: case OR: case GT: case LT:
+                return BoolVal.of(evalBool(expr, env));
             case EQ:
-                if (l instanceof IntVal) return new BoolVal(((IntVal) l).value == ((IntVal) r).value);
-                return new BoolVal(((BoolVal) l).value == ((BoolVal) r).value);
+                if (kindOf(expr.left) != null) return BoolVal.of(evalBool(expr, env));
+                break;
             default: throw new RuntimeException("Unknown Op: " + expr.op);
         }
+
+        // We assume TypeChecker passed, so strict casting is safe-ish.
+        EnvItem l = evaluate(expr.left, env);
+        EnvItem r = evaluate(expr.right, env);
+        if (l instanceof IntVal) return BoolVal.of(((IntVal) l).value == ((IntVal) r).value);
+        return BoolVal.of(((BoolVal) l).value == ((BoolVal) r).value);
+    }
+
+    private EnvItem evaluate(FuncCall call, Frame env) {
+        Closure closure = callee(call, env);
+        if (closure.memo != null) return memoized(closure, call, env);
+        if (closure.compiled != null) return invokeCompiled(closure, call, env);
+
+        // New frame on top of the captured globals
+        Frame funcEnv = new Frame(closure.frame, closure.def.frameSize);
+
+        // Evaluate args in current scope, binding parameters to slots 0..n-1
+        for (int i = 0; i < call.args.size(); i++) {
+            bind(funcEnv, i, call.args.get(i), env);
+        }
+        return run(closure, call.name, funcEnv);
     }
 
-    private EnvItem evaluate(FuncCall call, Env env) {
-        Closure closure = (Closure) env.getVal(call.name);
-        Env funcEnv = closure.funcEnv; // Use captured environment
-        
-        // Evaluate args in current scope
-        List<EnvItem> args = new ArrayList<>();
-        for (Expr e : call.args) args.add(evaluate(e, env));
+    // A call from a node tree, counted and with its arguments evaluated there
+    EnvItem call(Closure closure, String name, EnvItem[] args) {
+        if (closure.memo != null || closure.compiled != null) {
+            int[] values = new int[args.length];
+            for (int i = 0; i < args.length; i++) values[i] = toInt(args[i]);
+            return closure.memo != null ? memoized(closure, name, values) : invokeCompiled(closure, values);
+        }
+        Frame funcEnv = new Frame(closure.frame, closure.def.frameSize);
+        for (int i = 0; i < args.length; i++) funcEnv.declare(i, args[i]);
+        return run(closure, name, funcEnv);
+    }
 
-        funcEnv.enterScope();
+    // Trampoline: tail calls run here, reusing the frame, instead of
+    // nesting on the Java stack. Closures never capture a function frame
+    // (see Resolver), so nothing can still refer to it.
+    private EnvItem run(Closure closure, String name, Frame funcEnv) {
+        Closure caller = running;
         try {
-            // Bind parameters
-            for (int i = 0; i < closure.def.params.size(); i++) {
-                funcEnv.declare(closure.def.params.get(i).name, args.get(i));
+            while (true) {
+                running = closure;
+                EnvItem ret = closure.tree != null ? closure.tree.execute(funcEnv) : evaluate(closure.def.body, funcEnv);
+                if (ret == null) throw new RuntimeException("Function " + name + " finished without return.");
+                if (ret != TAIL_CALL) return ret;
+
+                closure = tailClosure;
+                name = tailName;
+                EnvItem[] args = tailArgs;
+                tailClosure = null;
+                tailArgs = null;
+                if (funcEnv.parent != closure.frame || funcEnv.slots.length < closure.def.frameSize) {
+                    funcEnv = new Frame(closure.frame, closure.def.frameSize);
+                }
+                for (int i = 0; i < args.length; i++) funcEnv.declare(i, args[i]);
             }
-            evaluate(closure.def.body, funcEnv);
-        } catch (ReturnValueException ret) {
-            return ret.value;
         } finally {
-            funcEnv.exitScope();
+            running = caller;
+        }
+    }
+
+    // A call to a pure function: answered from its MemoTable if it has
+    // seen the arguments, otherwise run and remembered. A 'return f(...)'
+    // inside still runs as a tail call, under the outer call's arguments.
+    private EnvItem memoized(Closure closure, FuncCall call, Frame env) {
+        List<TypeExpr> paramTypes = closure.def.type.paramTypes;
+        int[] args = new int[call.args.size()];
+        for (int i = 0; i < args.length; i++) {
+            Expr arg = call.args.get(i);
+            if (((TypeConst) paramTypes.get(i).find()).type == Type.BOOLEAN) args[i] = evalBool(arg, env) ? 1 : 0;
+            else args[i] = evalInt(arg, env);
+        }
+        return memoized(closure, call.name, args);
+    }
+
+    private EnvItem memoized(Closure closure, String name, int[] args) {
+        MemoTable memo = closure.memo;
+        List<TypeExpr> paramTypes = closure.def.type.paramTypes;
+        EnvItem result = memo.get(args);
+        if (result != null) return result;
+        if (!memo.isUseful()) closure.memo = null; // plain calls from now on
+
+        Frame funcEnv = new Frame(closure.frame, closure.def.frameSize);
+        for (int i = 0; i < args.length; i++) {
+            if (((TypeConst) paramTypes.get(i).find()).type == Type.BOOLEAN) funcEnv.declareBool(i, args[i] != 0);
+            else funcEnv.declareInt(i, args[i]);
+        }
+        result = run(closure, name, funcEnv);
+        memo.put(args, result);
+        return result;
+    }
+
+    // Looks up the called closure and counts the call
+    private Closure callee(FuncCall call, Frame env) {
+        Closure closure = (Closure) env.get(call.depth, call.slot, call.name);
+        count(closure);
+        return closure;
+    }
+
+    void count(Closure closure) {
+        if (++closure.calls + closure.backEdges / BACK_EDGES_PER_CALL >= closure.nextTierAt) promote(closure);
+    }
+
+    // Moves a hot function up a tier (see the thresholds above)
+    private void promote(Closure closure) {
+        if (closure.memo != null) return; // where its MemoTable is
+        if (closure.nextTierAt < jitThreshold) {
+            if (!hasTailCall(closure.def.body)) closure.tree = TreeInterpreter.build(closure.def.body, closure);
+            closure.nextTierAt = jitThreshold;
+            return;
+        }
+        MethodHandle compiled = JitCompiler.compile(closure.def);
+        if (compiled != null) {
+            closure.compiled = compiled;
+            closure.tree = null;
+        }
+        closure.nextTierAt = Long.MAX_VALUE;
+    }
+
+    private static boolean hasTailCall(Stmt stmt) {
+        switch (stmt.kind) {
+            case StmtKind.BLOCK:
+                for (Stmt s : ((BlockStmt) stmt).statements) {
+                    if (hasTailCall(s)) return true;
+                }
+                return false;
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                return hasTailCall(ifStmt.t) || (ifStmt.e != null && hasTailCall(ifStmt.e));
+            }
+            case StmtKind.LOOP: return hasTailCall(((LoopStmt) stmt).body);
+            case StmtKind.RETURN: return ((ReturnStmt) stmt).expr instanceof FuncCall;
+            default: return false;
+        }
+    }
+
+    // Calls a function compiled by the JitCompiler: ints and booleans cross as JVM ints
+    private EnvItem invokeCompiled(Closure closure, FuncCall call, Frame env) {
+        int[] args = new int[call.args.size()];
+        for (int i = 0; i < args.length; i++) {
+            Expr arg = call.args.get(i);
+            EnvItem kind = kindOf(arg);
+            if (kind == Frame.INT) args[i] = evalInt(arg, env);
+            else if (kind == Frame.BOOL) args[i] = evalBool(arg, env) ? 1 : 0;
+            else args[i] = toInt(evaluate(arg, env));
+        }
+        return invokeCompiled(closure, args);
+    }
+
+    private static int toInt(EnvItem v) {
+        return v instanceof IntVal ? ((IntVal) v).value : (((BoolVal) v).value ? 1 : 0);
+    }
+
+    private static EnvItem invokeCompiled(Closure closure, int[] args) {
+        int result;
+        try {
+            result = (int) closure.compiled.invokeExact(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
         }
-        throw new RuntimeException("Function " + call.name + " finished without return.");
+        TypeConst returnType = (TypeConst) closure.def.type.returnType.find();
+        if (returnType.type == Type.BOOLEAN) return BoolVal.of(result != 0);
+        return IntVal.of(result);
     }
-}
\ No newline at end of file
+}
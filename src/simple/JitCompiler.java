@@ -0,0 +1,486 @@
+package simple;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compiles a hot FuncDef into a JVM hidden class so HotSpot can JIT the Simple
+// arithmetic directly. Only functions whose FuncType is fully resolved to int
+// and boolean, and whose body touches nothing but its own params and locals
+// and calls nothing but itself, are eligible; everything else stays in the
+// Interpreter.
+//
+// The hidden class has two static methods:
+//   run(I/Z...)I/Z   the function itself, one JVM local per resolver slot;
+//                    a call to itself is an invokestatic of run, and a
+//                    'return' of one reuses the frame like the Interpreter's
+//   call([I)I        bridge used by the Interpreter, unpacks the args array
+// The self-calls are bound to this definition, not to the global slot, so
+// the Interpreter drops the code when the name is rebound.
+// Class files are emitted at version 50 without a StackMapTable, so the JVM
+// verifies them by type inference.
+class JitCompiler {
+    private static final MethodType BRIDGE_TYPE = MethodType.methodType(int.class, int[].class);
+    private static final int MAX_CODE = 32767; // branch offsets are signed 16-bit
+
+    // Returns a (int[])int handle to the compiled function, or null if it is not eligible.
+    static MethodHandle compile(FuncDef def) {
+        if (def.type == null || !isPrimitive(def.type.returnType)) return null;
+        for (TypeExpr p : def.type.paramTypes) {
+            if (!isPrimitive(p)) return null;
+        }
+        if (def.frameSize > 255) return null; // ILOAD/ISTORE take a u1 slot
+        for (String name : def.freeVars) {
+            if (!name.equals(def.name)) return null;
+        }
+        if (!isEligible(def.body, def)) return null;
+        try {
+            byte[] bytes = new JitCompiler(def).emitClass();
+            if (bytes == null) return null;
+            MethodHandles.Lookup hidden = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return hidden.findStatic(hidden.lookupClass(), "call", BRIDGE_TYPE);
+        } catch (ReflectiveOperationException | IOException | LinkageError e) {
+            return null; // fall back to the Interpreter
+        }
+    }
+
+    private static boolean isPrimitive(TypeExpr t) {
+        return t.find() instanceof TypeConst;
+    }
+
+    private static boolean isEligible(Stmt stmt, FuncDef def) {
+        switch (stmt.kind) {
+            case StmtKind.VAR_DECL: return ((VarDecl) stmt).type != null; // 'var' locals start Uninitialized
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                return assign.depth == 0 && isEligible(assign.expr, def);
+            }
+            case StmtKind.BLOCK: {
+                BlockStmt block = (BlockStmt) stmt;
+                for (VarDecl d : block.declarations) if (!isEligible(d, def)) return false;
+                for (Stmt s : block.statements) if (!isEligible(s, def)) return false;
+                return true;
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                return isEligible(ifStmt.conditional, def) && isEligible(ifStmt.t, def)
+                        && (ifStmt.e == null || isEligible(ifStmt.e, def));
+            }
+            case StmtKind.LOOP: {
+                LoopStmt loop = (LoopStmt) stmt;
+                return isEligible(loop.conditional, def) && isEligible(loop.body, def);
+            }
+            case StmtKind.RETURN: return isEligible(((ReturnStmt) stmt).expr, def);
+            default: return false;
+        }
+    }
+
+    private static boolean isEligible(Expr expr, FuncDef def) {
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL: case ExprKind.BOOL_LITERAL: return true;
+            case ExprKind.ID: return ((IdExpr) expr).depth == 0; // not the function as a value
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                return isEligible(bin.left, def) && isEligible(bin.right, def);
+            }
+            case ExprKind.CALL: {
+                if (!isSelfCall(expr, def)) return false;
+                for (Expr arg : ((FuncCall) expr).args) if (!isEligible(arg, def)) return false;
+                return true;
+            }
+            default: return false; // inlined calls and anything newer stay interpreted
+        }
+    }
+
+    private static boolean isSelfCall(Expr expr, FuncDef def) {
+        if (expr.kind != ExprKind.CALL) return false;
+        FuncCall call = (FuncCall) expr;
+        return call.depth == 1 && call.slot == def.slot && call.args.size() == def.params.size();
+    }
+
+    // --- Class file emission ---
+
+    private static final int ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11, LDC_W = 0x13;
+    private static final int ILOAD = 0x15, ISTORE = 0x36, ALOAD_0 = 0x2a, IALOAD = 0x2e, DUP = 0x59;
+    private static final int IADD = 0x60, ISUB = 0x64, IMUL = 0x68, IDIV = 0x6c;
+    private static final int IFEQ = 0x99, IF_ICMPNE = 0xa0, IF_ICMPGE = 0xa2, IF_ICMPLE = 0xa4, GOTO = 0xa7;
+    private static final int IRETURN = 0xac, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, NEW = 0xbb, ATHROW = 0xbf;
+
+    private final FuncDef def;
+    private final List<byte[]> pool = new ArrayList<>();
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int runRef; // constant pool entry of run, for self-calls
+    private byte[] code;
+    private int size;
+    private int stack, maxStack;
+
+    private JitCompiler(FuncDef def) {
+        this.def = def;
+    }
+
+    private byte[] emitClass() throws IOException {
+        String descriptor = descriptor();
+        int thisClass = classRef("simple/JitFunction");
+        int superClass = classRef("java/lang/Object");
+
+        byte[] run = emitRun(descriptor);
+        if (run == null) return null;
+        byte[] bridge = emitBridge(descriptor);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(50);
+        out.writeShort(pool.size() + 1);
+        for (byte[] entry : pool) out.write(entry);
+        out.writeShort(0x0031); // public final super
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(0); // interfaces
+        out.writeShort(0); // fields
+        out.writeShort(2); // methods
+        out.write(run);
+        out.write(bridge);
+        out.writeShort(0); // attributes
+        return bytes.toByteArray();
+    }
+
+    private String descriptor() {
+        StringBuilder sb = new StringBuilder("(");
+        for (TypeExpr p : def.type.paramTypes) sb.append(jvmType(p));
+        return sb.append(')').append(jvmType(def.type.returnType)).toString();
+    }
+
+    private static char jvmType(TypeExpr t) {
+        return ((TypeConst) t.find()).type == Type.BOOLEAN ? 'Z' : 'I';
+    }
+
+    private byte[] emitRun(String descriptor) throws IOException {
+        begin();
+        runRef = methodRef("simple/JitFunction", "run", descriptor);
+        emitStmt(def.body);
+        // new RuntimeException(msg) at the end of a body that did not return
+        int exception = classRef("java/lang/RuntimeException");
+        op(NEW); u2(exception); push(1);
+        op(DUP); push(1);
+        op(LDC_W); u2(string("Function " + def.name + " finished without return.")); push(1);
+        op(INVOKESPECIAL); u2(methodRef("java/lang/RuntimeException", "<init>", "(Ljava/lang/String;)V")); pop(3);
+        op(ATHROW);
+        if (size > MAX_CODE) return null;
+        return method("run", descriptor, Math.max(def.frameSize, def.params.size()));
+    }
+
+    private byte[] emitBridge(String descriptor) throws IOException {
+        begin();
+        for (int i = 0; i < def.params.size(); i++) {
+            op(ALOAD_0); push(1);
+            pushInt(i);
+            op(IALOAD); pop(1);
+        }
+        op(INVOKESTATIC);
+        u2(methodRef("simple/JitFunction", "run", descriptor));
+        pop(def.params.size());
+        push(1);
+        op(IRETURN);
+        return method("call", "([I)I", 1);
+    }
+
+    private byte[] method(String name, String descriptor, int maxLocals) throws IOException {
+        byte[] body = Arrays.copyOf(code, size);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(0x0009); // public static
+        out.writeShort(utf8(name));
+        out.writeShort(utf8(descriptor));
+        out.writeShort(1);
+        out.writeShort(utf8("Code"));
+        out.writeInt(12 + body.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(body.length);
+        out.write(body);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+        return bytes.toByteArray();
+    }
+
+    private void begin() {
+        code = new byte[256];
+        size = 0;
+        stack = 0;
+        maxStack = 0;
+    }
+
+    // --- Statements ---
+
+    private void emitStmt(Stmt stmt) {
+        switch (stmt.kind) {
+            case StmtKind.VAR_DECL:
+                op(ICONST_0); push(1);
+                op(ISTORE); u1(((VarDecl) stmt).slot); pop(1);
+                break;
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                emitExpr(assign.expr);
+                op(ISTORE); u1(assign.slot); pop(1);
+                break;
+            }
+            case StmtKind.BLOCK: {
+                BlockStmt block = (BlockStmt) stmt;
+                for (VarDecl d : block.declarations) emitStmt(d);
+                for (Stmt s : block.statements) emitStmt(s);
+                break;
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                int toElse = emitBranchIfFalse(ifStmt.conditional);
+                emitStmt(ifStmt.t);
+                if (ifStmt.e != null) {
+                    op(GOTO);
+                    int toEnd = placeholder();
+                    patch(toElse);
+                    emitStmt(ifStmt.e);
+                    patch(toEnd);
+                } else {
+                    patch(toElse);
+                }
+                break;
+            }
+            case StmtKind.LOOP: {
+                LoopStmt loop = (LoopStmt) stmt;
+                int top = size;
+                int toEnd = emitBranchIfFalse(loop.conditional);
+                emitStmt(loop.body);
+                op(GOTO); u2(top - (size - 1));
+                patch(toEnd);
+                break;
+            }
+            case StmtKind.RETURN: {
+                Expr expr = ((ReturnStmt) stmt).expr;
+                if (isSelfCall(expr, def)) {
+                    // Tail call: the args become the params and the body starts over
+                    List<Expr> args = ((FuncCall) expr).args;
+                    for (Expr arg : args) emitExpr(arg);
+                    for (int i = args.size() - 1; i >= 0; i--) {
+                        op(ISTORE); u1(i); pop(1);
+                    }
+                    op(GOTO); u2(-(size - 1));
+                    break;
+                }
+                emitExpr(expr);
+                op(IRETURN); pop(1);
+                break;
+            }
+            default:
+                throw new UnsupportedOperationException("Unknown Stmt: " + stmt); // isEligible let it through
+        }
+    }
+
+    // Emits a branch taken when 'cond' is false and returns the offset to patch.
+    // Comparisons branch directly instead of materializing a boolean.
+    private int emitBranchIfFalse(Expr cond) {
+        if (cond.kind == ExprKind.BINARY) {
+            BinaryExpr bin = (BinaryExpr) cond;
+            int inverse = inverseCompare(bin.op);
+            if (inverse >= 0) {
+                emitExpr(bin.left);
+                emitExpr(bin.right);
+                op(inverse); pop(2);
+                return placeholder();
+            }
+        }
+        emitExpr(cond);
+        op(IFEQ); pop(1);
+        return placeholder();
+    }
+
+    private static int inverseCompare(Operator op) {
+        switch (op) {
+            case LT: return IF_ICMPGE;
+            case GT: return IF_ICMPLE;
+            case EQ: return IF_ICMPNE; // ints and booleans are both JVM ints
+            default: return -1;
+        }
+    }
+
+    // --- Expressions ---
+
+    private void emitExpr(Expr expr) {
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL:
+                pushInt(((IntLiteral) expr).value);
+                break;
+            case ExprKind.BOOL_LITERAL:
+                pushInt(((BoolLiteral) expr).value ? 1 : 0);
+                break;
+            case ExprKind.ID:
+                op(ILOAD); u1(((IdExpr) expr).slot); push(1);
+                break;
+            case ExprKind.BINARY:
+                emitBinary((BinaryExpr) expr);
+                break;
+            case ExprKind.CALL: {
+                FuncCall call = (FuncCall) expr; // a self-call (see isEligible)
+                for (Expr arg : call.args) emitExpr(arg);
+                op(INVOKESTATIC); u2(runRef);
+                pop(call.args.size());
+                push(1);
+                break;
+            }
+            default:
+                throw new UnsupportedOperationException("Unknown Expr: " + expr); // isEligible let it through
+        }
+    }
+
+    private void emitBinary(BinaryExpr bin) {
+        if (bin.op == Operator.AND) {
+            // left ? right : 0
+            int toFalse = emitBranchIfFalse(bin.left);
+            emitExpr(bin.right);
+            op(GOTO);
+            int toEnd = placeholder();
+            patch(toFalse);
+            pop(1);
+            pushInt(0);
+            patch(toEnd);
+            return;
+        }
+        if (bin.op == Operator.OR) {
+            // left ? 1 : right
+            int toRight = emitBranchIfFalse(bin.left);
+            pushInt(1);
+            op(GOTO);
+            int toEnd = placeholder();
+            patch(toRight);
+            pop(1);
+            emitExpr(bin.right);
+            patch(toEnd);
+            return;
+        }
+        int compare = inverseCompare(bin.op);
+        if (compare >= 0) {
+            // cond ? 1 : 0
+            int toFalse = emitBranchIfFalse(bin);
+            pushInt(1);
+            op(GOTO);
+            int toEnd = placeholder();
+            patch(toFalse);
+            pop(1);
+            pushInt(0);
+            patch(toEnd);
+            return;
+        }
+        emitExpr(bin.left);
+        emitExpr(bin.right);
+        switch (bin.op) {
+            case ADD: op(IADD); break;
+            case SUB: op(ISUB); break;
+            case MUL: op(IMUL); break;
+            case DIV: op(IDIV); break;
+            default: throw new RuntimeException("Unknown Op: " + bin.op);
+        }
+        pop(1);
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            op(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            op(BIPUSH); u1(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            op(SIPUSH); u2(value);
+        } else {
+            op(LDC_W); u2(integer(value));
+        }
+        push(1);
+    }
+
+    // --- Code buffer helpers ---
+
+    private void op(int opcode) { u1(opcode); }
+
+    private void u1(int value) {
+        if (size == code.length) code = Arrays.copyOf(code, size * 2);
+        code[size++] = (byte) value;
+    }
+
+    private void u2(int value) { u1(value >> 8); u1(value); }
+
+    private void push(int n) {
+        stack += n;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private void pop(int n) { stack -= n; }
+
+    // Reserves a branch offset right after the opcode just written
+    private int placeholder() {
+        u2(0);
+        return size - 3; // position of the branch opcode
+    }
+
+    private void patch(int branchAt) {
+        int offset = size - branchAt;
+        code[branchAt + 1] = (byte) (offset >> 8);
+        code[branchAt + 2] = (byte) offset;
+    }
+
+    // --- Constant pool ---
+
+    private int entry(String key, byte[] bytes) {
+        Integer index = poolIndex.get(key);
+        if (index != null) return index;
+        pool.add(bytes);
+        poolIndex.put(key, pool.size());
+        return pool.size();
+    }
+
+    private int utf8(String s) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(1);
+            out.writeUTF(s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return entry("U" + s, bytes.toByteArray());
+    }
+
+    private int integer(int value) {
+        return entry("I" + value, new byte[] { 3, (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value });
+    }
+
+    private int classRef(String name) {
+        return entry("C" + name, ref(7, utf8(name)));
+    }
+
+    private int string(String s) {
+        return entry("S" + s, ref(8, utf8(s)));
+    }
+
+    private int methodRef(String owner, String name, String descriptor) {
+        int cls = classRef(owner);
+        int nameAndType = entry("N" + name + descriptor, ref(12, utf8(name), utf8(descriptor)));
+        return entry("M" + owner + "." + name + descriptor, ref(10, cls, nameAndType));
+    }
+
+    private static byte[] ref(int tag, int... indices) {
+        byte[] bytes = new byte[1 + 2 * indices.length];
+        bytes[0] = (byte) tag;
+        for (int i = 0; i < indices.length; i++) {
+            bytes[1 + 2 * i] = (byte) (indices[i] >> 8);
+            bytes[2 + 2 * i] = (byte) indices[i];
+        }
+        return bytes;
+    }
+}
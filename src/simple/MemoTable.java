@@ -0,0 +1,73 @@
+package simple;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Results of a pure function by argument tuple, for the Interpreter.
+// Arguments are ints and booleans (as 0/1), so a tuple is an int[]; the
+// least recently used entry is evicted once the table holds 'capacity'.
+public class MemoTable {
+    static final int DEFAULT_CAPACITY = 4096;
+    private static final int TRIAL_MISSES = 1000; // before judging the hit rate
+
+    private final int capacity;
+    private final LinkedHashMap<Key, EnvItem> entries;
+    private long hits, misses;
+
+    MemoTable(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, EnvItem> eldest) {
+                return size() > MemoTable.this.capacity;
+            }
+        };
+    }
+
+    // The remembered result, or null; counts a hit or a miss
+    EnvItem get(int[] args) {
+        EnvItem result = entries.get(new Key(args));
+        if (result != null) hits++;
+        else misses++;
+        return result;
+    }
+
+    // False once it has mostly missed: a function rarely called twice with
+    // the same arguments is better left to the JitCompiler
+    boolean isUseful() {
+        return misses < TRIAL_MISSES || hits * 8 >= misses;
+    }
+
+    void put(int[] args, EnvItem result) {
+        entries.put(new Key(args), result);
+    }
+
+    public long hits() { return hits; }
+
+    public long misses() { return misses; }
+
+    public int size() { return entries.size(); }
+
+    public int capacity() { return capacity; }
+
+    private static final class Key {
+        final int[] args;
+        final int hash;
+
+        Key(int[] args) {
+            this.args = args;
+            this.hash = Arrays.hashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(args, ((Key) o).args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package simple;
+
+// Instruction set of the stack VM. Operands follow the opcode inline in the
+// int[] code array; the comment lists them in order.
+// Locals are the current function frame, or the globals in top-level code.
+final class Opcode {
+    private Opcode() {}
+
+    static final int PUSH = 0;          // value
+    static final int LOAD = 1;          // slot   (local)
+    static final int STORE = 2;         // slot
+    static final int LOAD_GLOBAL = 3;   // slot   (free variable, inside a function)
+    static final int STORE_GLOBAL = 4;  // slot
+    static final int DEFINE = 5;        // slot   (pops into a named global and marks it defined)
+
+    static final int ADD = 6;
+    static final int SUB = 7;
+    static final int MUL = 8;
+    static final int DIV = 9;
+    static final int LT = 10;
+    static final int GT = 11;
+    static final int EQ = 12;
+    static final int AND = 13;
+    static final int OR = 14;
+
+    // Superinstructions: binary op whose right operand is a local ...
+    static final int ADD_L = 15;        // slot
+    static final int SUB_L = 16;        // slot
+    static final int MUL_L = 17;        // slot
+    static final int LT_L = 18;         // slot
+    static final int GT_L = 19;         // slot
+    static final int EQ_L = 20;         // slot
+    // ... or an immediate
+    static final int ADD_I = 21;        // value
+    static final int SUB_I = 22;        // value
+    static final int MUL_I = 23;        // value
+    static final int LT_I = 24;         // value
+    static final int GT_I = 25;         // value
+    static final int EQ_I = 26;         // value
+    static final int INC = 27;          // slot, value   (x := x + k)
+    static final int INC_GLOBAL = 28;   // slot, value   (the same on a free variable)
+    // Three-address ops on locals: x := a op b
+    static final int ADD_LL = 29;       // slot x, slot a, slot b
+    static final int SUB_LL = 30;       // slot x, slot a, slot b
+    static final int MUL_LL = 31;       // slot x, slot a, slot b
+
+    static final int JUMP = 32;          // target
+    static final int JUMP_IF_FALSE = 33; // target
+    static final int JUMP_IF_TRUE = 34;  // target
+    // Compare-and-branch: a local against an immediate or another local,
+    // jumping when the comparison holds (IF_) or fails (UNLESS_)
+    static final int IF_LT_I = 35;      // slot, value, target
+    static final int IF_GT_I = 36;      // slot, value, target
+    static final int IF_EQ_I = 37;      // slot, value, target
+    static final int IF_LT_L = 38;      // slot, slot, target
+    static final int IF_GT_L = 39;      // slot, slot, target
+    static final int IF_EQ_L = 40;      // slot, slot, target
+    static final int UNLESS_LT_I = 41;  // slot, value, target
+    static final int UNLESS_GT_I = 42;  // slot, value, target
+    static final int UNLESS_EQ_I = 43;  // slot, value, target
+    static final int UNLESS_LT_L = 44;  // slot, slot, target
+    static final int UNLESS_GT_L = 45;  // slot, slot, target
+    static final int UNLESS_EQ_L = 46;  // slot, slot, target
+
+    static final int CLOSURE = 47;       // constant index of a Proto
+    static final int CALL = 48;          // argc  (callee on top, args below it)
+    static final int CALL_GLOBAL = 49;   // slot, argc  (callee in a global, args on top)
+    static final int GUARD_CALLEE = 50;  // slot, constant index of a FuncDef, target  (jumps unless the global's closure was compiled from it)
+    static final int RETURN = 51;
+    static final int FAIL = 52;          // constant index of the error message
+    static final int HALT = 53;
+}
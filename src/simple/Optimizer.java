@@ -0,0 +1,955 @@
+package simple;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+// Optimization pass, run after TypeChecker.check and before Resolver.resolve.
+// Rebuilds the unit with:
+//   - BinaryExpr over literals folded (a division by zero is left to fail at run time)
+//   - IfStmt and LoopStmt with a literal condition pruned
+//   - globals with a known constant value replaced by it in top-level code
+//   - calls to small non-recursive functions inlined
+//   - loop-invariant BinaryExprs hoisted, multiplications by induction
+//     variables strength-reduced, and loops of a few known trips unrolled
+// Strength reduction trades a multiplication for an extra assignment per
+// iteration. That only pays on the VM, where the update is one ADD_LL; the
+// tree-walking engines pay more for the statement than for the multiply,
+// so it is off unless App runs the VM (see bench/simple/LoopOptBench).
+// A global's value is known after a top-level unit that declares it with a
+// type or assigns it a literal, and forgotten as soon as any other code may
+// assign it. Function bodies are never given global constants: they can run
+// after the global has changed.
+//
+// A function is inlinable if its body is a single 'return e', e has at most
+// INLINE_MAX_SIZE nodes, and it cannot reach itself in the call graph. A
+// call is inlined by substituting the argument expressions for the
+// parameters in e, so the inlined body has no binders of its own and
+// nothing at the call site can be captured by a renamed parameter. That
+// needs every argument to be pure and unable to fail, small if its
+// parameter is used more than once, and none of e's free names shadowed at
+// the call site. The result is an InlinedCall, which the engines guard
+// against the function being rebound later.
+//
+// Loop temps are named $t0, $t1, ...; the lexer never produces '$', so they
+// cannot clash with a program's names.
+public class Optimizer {
+    static final int INLINE_MAX_SIZE = 12;
+    private static final int DUPLICATE_MAX_SIZE = 3; // largest argument copied to several uses
+    private static final int UNROLL_MAX_TRIPS = 8;
+    private static final int UNROLL_MAX_SIZE = 64; // nodes in all the copies together
+
+    private final Map<String, Expr> constants = new HashMap<>(); // global name -> literal
+    private final Set<String> assignedInFunctions = new HashSet<>(); // never constant again
+    private final Map<String, FuncDef> inlinable = new HashMap<>(); // by name, as executed
+    private final Map<String, Set<String>> callGraph = new HashMap<>(); // function -> names it calls
+    private final Deque<Map<String, Boolean>> scopes = new ArrayDeque<>(); // local name -> may be uninitialized
+    private final Map<String, Boolean> globals = new HashMap<>(); // declared name -> may be uninitialized
+    private Set<String> assignedInUnit = new HashSet<>();
+    private final Map<String, Expr> pendingConstants = new HashMap<>(); // applied by commit()
+    private FuncDef pendingInlinable;
+    private boolean inFunction;
+    private int tempCount; // for unique $t names
+    private boolean enabled = true;
+    private boolean reduceStrength = false;
+
+    public boolean isEnabled() { return enabled; }
+
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public void setStrengthReduction(boolean reduceStrength) { this.reduceStrength = reduceStrength; }
+
+    // New Entry Point for REPL
+    // While disabled, the unit is returned as it is, but still observed so
+    // the known global constants stay correct.
+    public AstNode optimize(AstNode node) {
+        scopes.clear();
+        pendingConstants.clear();
+        pendingInlinable = null;
+        assignedInUnit = assignedNames(node);
+        if (node instanceof FuncDef) {
+            FuncDef def = (FuncDef) node;
+            for (String name : assignedInUnit) {
+                assignedInFunctions.add(name);
+                constants.remove(name);
+            }
+            constants.remove(def.name);
+            globals.put(def.name, false);
+            // Rebinding: earlier inlined copies are caught by their guards
+            inlinable.remove(def.name);
+            FuncDef result = enabled ? optimizeFuncDef(def) : def;
+            callGraph.put(def.name, calledNames(result.body));
+            if (inlineBody(result) != null && !reaches(def.name, def.name, new HashSet<>())) {
+                pendingInlinable = result;
+            }
+            return result;
+        }
+        for (String name : assignedInUnit) constants.remove(name);
+
+        AstNode result = node;
+        if (enabled && node instanceof Stmt) result = optimizeStmt((Stmt) node);
+        else if (enabled && node instanceof Expr) result = optimizeExpr((Expr) node);
+
+        // What the unit leaves behind in the globals, for the units after it
+        if (result instanceof VarDecl) {
+            VarDecl decl = (VarDecl) result;
+            constants.remove(decl.name);
+            globals.put(decl.name, decl.type == null);
+            if (decl.type == Type.INTEGER) remember(decl.name, literal(0, Type.INTEGER));
+            else if (decl.type == Type.BOOLEAN) remember(decl.name, literal(false));
+        } else if (result instanceof AssignStmt) {
+            AssignStmt assign = (AssignStmt) result;
+            if (isLiteral(assign.expr)) remember(assign.id, assign.expr);
+        }
+        return result;
+    }
+
+    private void remember(String name, Expr value) {
+        if (!assignedInFunctions.contains(name)) pendingConstants.put(name, value);
+    }
+
+    // Called once the unit returned by optimize() has been resolved and run
+    // without error; only then are its constants and functions relied on.
+    public void commit() {
+        constants.putAll(pendingConstants);
+        if (pendingInlinable != null) inlinable.put(pendingInlinable.name, pendingInlinable);
+        pendingConstants.clear();
+        pendingInlinable = null;
+    }
+
+    private FuncDef optimizeFuncDef(FuncDef def) {
+        inFunction = true;
+        scopes.push(new HashMap<>());
+        try {
+            for (VarDecl param : def.params) scopes.peek().put(param.name, false);
+            Stmt body = optimizeStmt(def.body);
+            if (body == def.body) return def;
+            FuncDef copy = new FuncDef(def.name, def.params, body);
+            copy.type = def.type;
+            return copy;
+        } finally {
+            scopes.pop();
+            inFunction = false;
+        }
+    }
+
+    // --- Statements ---
+
+    private Stmt optimizeStmt(Stmt stmt) {
+        switch (stmt.kind) {
+            case StmtKind.VAR_DECL: {
+                VarDecl decl = (VarDecl) stmt;
+                if (!scopes.isEmpty()) scopes.peek().put(decl.name, decl.type == null);
+                return stmt;
+            }
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                Expr expr = optimizeExpr(assign.expr);
+                return expr == assign.expr ? assign : new AssignStmt(assign.id, expr);
+            }
+            case StmtKind.BLOCK: return optimizeBlock((BlockStmt) stmt);
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                Expr cond = optimizeExpr(ifStmt.conditional);
+                if (cond instanceof BoolLiteral) {
+                    if (((BoolLiteral) cond).value) return optimizeStmt(ifStmt.t);
+                    return ifStmt.e != null ? optimizeStmt(ifStmt.e) : emptyBlock();
+                }
+                Stmt t = optimizeStmt(ifStmt.t);
+                Stmt e = ifStmt.e != null ? optimizeStmt(ifStmt.e) : null;
+                if (cond == ifStmt.conditional && t == ifStmt.t && e == ifStmt.e) return ifStmt;
+                return new IfStmt(cond, t, e);
+            }
+            case StmtKind.LOOP: {
+                LoopStmt loop = (LoopStmt) stmt;
+                Expr cond = optimizeExpr(loop.conditional);
+                if (cond instanceof BoolLiteral && !((BoolLiteral) cond).value) return emptyBlock();
+                Stmt body = optimizeStmt(loop.body);
+                if (cond != loop.conditional || body != loop.body) loop = new LoopStmt(cond, body);
+                return optimizeLoop(loop);
+            }
+            case StmtKind.RETURN: {
+                ReturnStmt ret = (ReturnStmt) stmt;
+                Expr expr = optimizeExpr(ret.expr);
+                return expr == ret.expr ? ret : new ReturnStmt(expr);
+            }
+            default: throw new UnsupportedOperationException("Unknown Stmt: " + stmt);
+        }
+    }
+
+    private Stmt optimizeBlock(BlockStmt block) {
+        scopes.push(new HashMap<>());
+        try {
+            Map<String, Integer> known = new HashMap<>(); // int variables with a known value here
+            for (VarDecl decl : block.declarations) {
+                scopes.peek().put(decl.name, decl.type == null);
+                if (decl.type == Type.INTEGER) known.put(decl.name, 0);
+            }
+            boolean changed = false;
+            List<Stmt> statements = new ArrayList<>();
+            for (Stmt s : block.statements) {
+                List<Stmt> copies = s instanceof LoopStmt ? unroll((LoopStmt) s, known) : null;
+                Stmt opt = s;
+                if (copies != null) {
+                    for (Stmt copy : copies) statements.add(optimizeStmt(copy));
+                    changed = true;
+                } else {
+                    opt = optimizeStmt(s);
+                    changed |= opt != s;
+                    statements.add(opt);
+                }
+                Set<String> assigned = new HashSet<>();
+                collectAssigned(s, assigned);
+                known.keySet().removeAll(assigned);
+                if (!calledNames(s).isEmpty()) known.keySet().removeIf(name -> !isLocal(name));
+                if (opt instanceof AssignStmt && ((AssignStmt) opt).expr instanceof IntLiteral) {
+                    known.put(((AssignStmt) opt).id, ((IntLiteral) ((AssignStmt) opt).expr).value);
+                }
+            }
+            return changed ? new BlockStmt(block.declarations, statements) : block;
+        } finally {
+            scopes.pop();
+        }
+    }
+
+    private static BlockStmt emptyBlock() {
+        return new BlockStmt(new ArrayList<>(), new ArrayList<>());
+    }
+
+    // --- Expressions ---
+
+    private Expr optimizeExpr(Expr expr) {
+        switch (expr.kind) {
+            case ExprKind.ID: {
+                IdExpr id = (IdExpr) expr;
+                Expr value = constants.get(id.name);
+                if (value == null || inFunction || isLocal(id.name) || assignedInUnit.contains(id.name)) return id;
+                return copyOf(value);
+            }
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                Expr left = optimizeExpr(bin.left);
+                Expr right = optimizeExpr(bin.right);
+                Expr folded = fold(bin, left, right);
+                if (folded != null) return folded;
+                if (left == bin.left && right == bin.right) return bin;
+                BinaryExpr copy = new BinaryExpr(left, bin.op, right);
+                copy.type = bin.type;
+                return copy;
+            }
+            case ExprKind.CALL: {
+                FuncCall call = (FuncCall) expr;
+                boolean changed = false;
+                List<Expr> args = new ArrayList<>();
+                for (Expr arg : call.args) {
+                    Expr opt = optimizeExpr(arg);
+                    changed |= opt != arg;
+                    args.add(opt);
+                }
+                FuncCall opt = call;
+                if (changed) {
+                    opt = new FuncCall(call.name, args);
+                    opt.type = call.type;
+                }
+                Expr inlined = inline(opt);
+                return inlined != null ? inlined : opt;
+            }
+            default: return expr;
+        }
+    }
+
+    // --- Loops ---
+
+    // What a loop body may change: the names it assigns or declares, and
+    // through calls, any global.
+    private static final class LoopInfo {
+        final Set<String> variant = new HashSet<>();
+        final boolean calls;
+
+        LoopInfo(LoopStmt loop) {
+            collectAssigned(loop.body, variant);
+            collectDeclared(loop.body, variant);
+            calls = !calledNames(loop).isEmpty();
+        }
+    }
+
+    // Strength reduction, then invariant hoisting. The temps they introduce
+    // are declared in a block around the loop and set up just before it.
+    private Stmt optimizeLoop(LoopStmt loop) {
+        LoopInfo info = new LoopInfo(loop);
+        List<VarDecl> temps = new ArrayList<>();
+        List<Stmt> setup = new ArrayList<>();
+        if (reduceStrength) loop = reduceStrength(loop, info, temps, setup);
+        loop = hoistInvariants(loop, info, temps, setup);
+        if (temps.isEmpty()) return loop;
+        setup.add(loop);
+        return new BlockStmt(temps, setup);
+    }
+
+    // v * k, with v an induction variable and k invariant, becomes a temp
+    // that starts at v * k and is advanced by step * k right after v is.
+    private LoopStmt reduceStrength(LoopStmt loop, LoopInfo info, List<VarDecl> temps, List<Stmt> setup) {
+        if (!(loop.body instanceof BlockStmt)) return loop;
+        BlockStmt body = (BlockStmt) loop.body;
+        Map<String, Integer> steps = new HashMap<>(); // induction variable -> step
+        for (Stmt s : body.statements) {
+            if (!(s instanceof AssignStmt)) continue;
+            String v = ((AssignStmt) s).id;
+            Integer step = inductionStep((AssignStmt) s);
+            if (step != null && assignments(body, v) == 1 && isStable(v, info)
+                    && !mayBeUninitialized(v) && !declares(body, v)) {
+                steps.put(v, step);
+            }
+        }
+        if (steps.isEmpty()) return loop;
+
+        Map<String, String> reduced = new HashMap<>(); // key of v * k -> temp
+        Map<String, List<Stmt>> updates = new HashMap<>(); // v -> temp updates
+        UnaryOperator<Expr> reduce = e -> {
+            if (!(e instanceof BinaryExpr) || ((BinaryExpr) e).op != Operator.MUL) return null;
+            BinaryExpr bin = (BinaryExpr) e;
+            Expr iv = bin.left, k = bin.right;
+            if (!isInduction(iv, steps)) {
+                iv = bin.right;
+                k = bin.left;
+            }
+            if (!isInduction(iv, steps) || isInduction(k, steps)) return null;
+            if (!(k instanceof IntLiteral) && !(k instanceof IdExpr && isInvariant(k, info))) return null;
+            String v = ((IdExpr) iv).name;
+            String key = v + "*" + key(k);
+            String temp = reduced.get(key);
+            if (temp == null) {
+                temp = newTemp(Type.INTEGER, temps);
+                reduced.put(key, temp);
+                setup.add(new AssignStmt(temp, substitute(bin, Map.of())));
+                int step = steps.get(v);
+                Expr delta = step == 1 ? substitute(k, Map.of()) : product(literal(step, Type.INTEGER), substitute(k, Map.of()));
+                updates.computeIfAbsent(v, n -> new ArrayList<>())
+                        .add(new AssignStmt(temp, sum(variable(temp, Type.INTEGER), delta)));
+            }
+            return variable(temp, Type.INTEGER);
+        };
+        Expr cond = rewrite(loop.conditional, reduce);
+        // Rewrite everything first: a product may follow its variable's update
+        List<Stmt> rewritten = new ArrayList<>();
+        for (Stmt s : body.statements) rewritten.add(rewrite(s, reduce));
+        List<Stmt> statements = new ArrayList<>();
+        for (int i = 0; i < rewritten.size(); i++) {
+            statements.add(rewritten.get(i));
+            Stmt s = body.statements.get(i);
+            if (s instanceof AssignStmt && updates.containsKey(((AssignStmt) s).id)) {
+                statements.addAll(updates.get(((AssignStmt) s).id));
+            }
+        }
+        if (reduced.isEmpty()) return loop;
+        info.variant.addAll(reduced.values());
+        return new LoopStmt(cond, new BlockStmt(body.declarations, statements));
+    }
+
+    // Maximal invariant BinaryExprs are computed once, before the loop.
+    // Only pure ones that cannot fail: the loop may run zero times.
+    private LoopStmt hoistInvariants(LoopStmt loop, LoopInfo info, List<VarDecl> temps, List<Stmt> setup) {
+        Map<String, String> hoisted = new HashMap<>(); // key of expression -> temp
+        UnaryOperator<Expr> hoist = e -> {
+            if (!(e instanceof BinaryExpr) || e.valueType() == null || !isInvariant(e, info)) return null;
+            String temp = hoisted.get(key(e));
+            if (temp == null) {
+                temp = newTemp(e.valueType(), temps);
+                hoisted.put(key(e), temp);
+                setup.add(new AssignStmt(temp, substitute(e, Map.of())));
+            }
+            return variable(temp, e.valueType());
+        };
+        Expr cond = rewrite(loop.conditional, hoist);
+        Stmt body = rewrite(loop.body, hoist);
+        return hoisted.isEmpty() ? loop : new LoopStmt(cond, body);
+    }
+
+    private boolean isInvariant(Expr expr, LoopInfo info) {
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL:
+            case ExprKind.BOOL_LITERAL:
+                return true;
+            case ExprKind.ID: {
+                String name = ((IdExpr) expr).name;
+                return !info.variant.contains(name) && isStable(name, info) && !mayBeUninitialized(name);
+            }
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                if (bin.op == Operator.DIV && !(bin.right instanceof IntLiteral && ((IntLiteral) bin.right).value != 0)) {
+                    return false;
+                }
+                return isInvariant(bin.left, info) && isInvariant(bin.right, info);
+            }
+            default: return false;
+        }
+    }
+
+    // Only assignments in the loop itself can change it
+    private boolean isStable(String name, LoopInfo info) {
+        return isLocal(name) || !info.calls;
+    }
+
+    private static boolean isInduction(Expr expr, Map<String, Integer> steps) {
+        return expr instanceof IdExpr && steps.containsKey(((IdExpr) expr).name);
+    }
+
+    // The step of 'v := v + c' or 'v := v - c', or null
+    private static Integer inductionStep(AssignStmt assign) {
+        if (!(assign.expr instanceof BinaryExpr)) return null;
+        BinaryExpr bin = (BinaryExpr) assign.expr;
+        if (!(bin.left instanceof IdExpr) || !((IdExpr) bin.left).name.equals(assign.id)) return null;
+        if (!(bin.right instanceof IntLiteral)) return null;
+        int c = ((IntLiteral) bin.right).value;
+        if (bin.op == Operator.ADD) return c;
+        if (bin.op == Operator.SUB) return -c;
+        return null;
+    }
+
+    // The copies of the body a loop runs, if its trip count is known and small:
+    // 'while (v < n) { ...; v := v + c }' with v's value known before it and
+    // assigned nowhere else.
+    private List<Stmt> unroll(LoopStmt loop, Map<String, Integer> known) {
+        Expr cond = optimizeExpr(loop.conditional);
+        if (!(cond instanceof BinaryExpr) || !(loop.body instanceof BlockStmt)) return null;
+        BinaryExpr test = (BinaryExpr) cond;
+        if (test.op != Operator.LT || !(test.left instanceof IdExpr) || !(test.right instanceof IntLiteral)) return null;
+        String v = ((IdExpr) test.left).name;
+        BlockStmt body = (BlockStmt) loop.body;
+        Integer start = known.get(v);
+        if (start == null || body.statements.isEmpty()) return null;
+        Stmt last = body.statements.get(body.statements.size() - 1);
+        if (!(last instanceof AssignStmt) || !((AssignStmt) last).id.equals(v)) return null;
+        Integer step = inductionStep((AssignStmt) last);
+        if (step == null || step <= 0 || assignments(body, v) != 1 || declares(body, v)) return null;
+        if (!isLocal(v) && !calledNames(body).isEmpty()) return null;
+
+        int bound = ((IntLiteral) test.right).value;
+        long trips = Math.max(0, ((long) bound - start + step - 1) / step);
+        if (trips > UNROLL_MAX_TRIPS || trips * size(body) > UNROLL_MAX_SIZE) return null;
+        if (start + trips * step > Integer.MAX_VALUE) return null; // v would wrap around
+        List<Stmt> copies = new ArrayList<>();
+        for (int i = 0; i < trips; i++) copies.add(copyOf(body));
+        return copies;
+    }
+
+    private String newTemp(Type type, List<VarDecl> temps) {
+        String name = "$t" + tempCount++;
+        temps.add(new VarDecl(name, type));
+        return name;
+    }
+
+    private static IdExpr variable(String name, Type type) {
+        IdExpr id = new IdExpr(name);
+        id.type = TypeConst.of(type);
+        return id;
+    }
+
+    private static BinaryExpr sum(Expr left, Expr right) {
+        BinaryExpr bin = new BinaryExpr(left, Operator.ADD, right);
+        bin.type = TypeConst.INTEGER;
+        return bin;
+    }
+
+    private static BinaryExpr product(Expr left, Expr right) {
+        BinaryExpr bin = new BinaryExpr(left, Operator.MUL, right);
+        bin.type = TypeConst.INTEGER;
+        return bin;
+    }
+
+    // Structural key of a pure expression, for sharing temps
+    private static String key(Expr expr) {
+        switch (expr.kind) {
+            case ExprKind.ID: return ((IdExpr) expr).name;
+            case ExprKind.INT_LITERAL: return Integer.toString(((IntLiteral) expr).value);
+            case ExprKind.BOOL_LITERAL: return Boolean.toString(((BoolLiteral) expr).value);
+            default: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                return "(" + key(bin.left) + " " + bin.op + " " + key(bin.right) + ")";
+            }
+        }
+    }
+
+    // Copy of stmt with every expression the function replaces swapped out;
+    // it returns null to look inside the expression instead. Unchanged
+    // subtrees are shared.
+    private static Stmt rewrite(Stmt stmt, UnaryOperator<Expr> f) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                Expr expr = rewrite(assign.expr, f);
+                return expr == assign.expr ? assign : new AssignStmt(assign.id, expr);
+            }
+            case StmtKind.BLOCK: {
+                BlockStmt block = (BlockStmt) stmt;
+                boolean changed = false;
+                List<Stmt> statements = new ArrayList<>();
+                for (Stmt s : block.statements) {
+                    Stmt opt = rewrite(s, f);
+                    changed |= opt != s;
+                    statements.add(opt);
+                }
+                return changed ? new BlockStmt(block.declarations, statements) : block;
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                Expr cond = rewrite(ifStmt.conditional, f);
+                Stmt t = rewrite(ifStmt.t, f);
+                Stmt e = ifStmt.e != null ? rewrite(ifStmt.e, f) : null;
+                if (cond == ifStmt.conditional && t == ifStmt.t && e == ifStmt.e) return ifStmt;
+                return new IfStmt(cond, t, e);
+            }
+            case StmtKind.LOOP: {
+                LoopStmt loop = (LoopStmt) stmt;
+                Expr cond = rewrite(loop.conditional, f);
+                Stmt body = rewrite(loop.body, f);
+                return cond == loop.conditional && body == loop.body ? loop : new LoopStmt(cond, body);
+            }
+            case StmtKind.RETURN: {
+                ReturnStmt ret = (ReturnStmt) stmt;
+                Expr expr = rewrite(ret.expr, f);
+                return expr == ret.expr ? ret : new ReturnStmt(expr);
+            }
+            default: return stmt;
+        }
+    }
+
+    private static Expr rewrite(Expr expr, UnaryOperator<Expr> f) {
+        Expr replaced = f.apply(expr);
+        if (replaced != null) return replaced;
+        Expr copy;
+        switch (expr.kind) {
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                Expr left = rewrite(bin.left, f);
+                Expr right = rewrite(bin.right, f);
+                if (left == bin.left && right == bin.right) return bin;
+                copy = new BinaryExpr(left, bin.op, right);
+                break;
+            }
+            case ExprKind.CALL: {
+                FuncCall call = (FuncCall) expr;
+                boolean changed = false;
+                List<Expr> args = new ArrayList<>();
+                for (Expr arg : call.args) {
+                    Expr opt = rewrite(arg, f);
+                    changed |= opt != arg;
+                    args.add(opt);
+                }
+                if (!changed) return call;
+                copy = new FuncCall(call.name, args);
+                break;
+            }
+            case ExprKind.INLINED_CALL: {
+                InlinedCall inlined = (InlinedCall) expr;
+                Expr call = rewrite(inlined.call, f);
+                Expr body = rewrite(inlined.body, f);
+                if (call == inlined.call && body == inlined.body) return inlined;
+                copy = new InlinedCall((FuncCall) call, body, inlined.target);
+                break;
+            }
+            default:
+                return expr;
+        }
+        copy.type = expr.type;
+        return copy;
+    }
+
+    // Fresh copy of a statement, keeping the checked types
+    private static Stmt copyOf(Stmt stmt) {
+        switch (stmt.kind) {
+            case StmtKind.VAR_DECL: return new VarDecl(((VarDecl) stmt).name, ((VarDecl) stmt).type);
+            case StmtKind.ASSIGN:
+                return new AssignStmt(((AssignStmt) stmt).id, substitute(((AssignStmt) stmt).expr, Map.of()));
+            case StmtKind.BLOCK: {
+                BlockStmt block = (BlockStmt) stmt;
+                List<VarDecl> declarations = new ArrayList<>();
+                for (VarDecl decl : block.declarations) declarations.add((VarDecl) copyOf(decl));
+                List<Stmt> statements = new ArrayList<>();
+                for (Stmt s : block.statements) statements.add(copyOf(s));
+                return new BlockStmt(declarations, statements);
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                return new IfStmt(substitute(ifStmt.conditional, Map.of()), copyOf(ifStmt.t),
+                        ifStmt.e != null ? copyOf(ifStmt.e) : null);
+            }
+            case StmtKind.LOOP: {
+                LoopStmt loop = (LoopStmt) stmt;
+                return new LoopStmt(substitute(loop.conditional, Map.of()), copyOf(loop.body));
+            }
+            case StmtKind.RETURN: return new ReturnStmt(substitute(((ReturnStmt) stmt).expr, Map.of()));
+            default: throw new UnsupportedOperationException("Unknown Stmt: " + stmt);
+        }
+    }
+
+    private static int size(Stmt stmt) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN: return 1 + size(((AssignStmt) stmt).expr);
+            case StmtKind.BLOCK: {
+                int n = 1 + ((BlockStmt) stmt).declarations.size();
+                for (Stmt s : ((BlockStmt) stmt).statements) n += size(s);
+                return n;
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                return 1 + size(ifStmt.conditional) + size(ifStmt.t) + (ifStmt.e != null ? size(ifStmt.e) : 0);
+            }
+            case StmtKind.LOOP: return 1 + size(((LoopStmt) stmt).conditional) + size(((LoopStmt) stmt).body);
+            case StmtKind.RETURN: return 1 + size(((ReturnStmt) stmt).expr);
+            default: return 1;
+        }
+    }
+
+    private static int assignments(Stmt stmt, String name) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN: return ((AssignStmt) stmt).id.equals(name) ? 1 : 0;
+            case StmtKind.BLOCK: {
+                int n = 0;
+                for (Stmt s : ((BlockStmt) stmt).statements) n += assignments(s, name);
+                return n;
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                return assignments(ifStmt.t, name) + (ifStmt.e != null ? assignments(ifStmt.e, name) : 0);
+            }
+            case StmtKind.LOOP: return assignments(((LoopStmt) stmt).body, name);
+            default: return 0;
+        }
+    }
+
+    // Whether a block inside stmt declares name, shadowing the one outside
+    private static boolean declares(Stmt stmt, String name) {
+        Set<String> names = new HashSet<>();
+        collectDeclared(stmt, names);
+        return names.contains(name);
+    }
+
+    private static void collectDeclared(Stmt stmt, Set<String> names) {
+        switch (stmt.kind) {
+            case StmtKind.BLOCK:
+                for (VarDecl decl : ((BlockStmt) stmt).declarations) names.add(decl.name);
+                for (Stmt s : ((BlockStmt) stmt).statements) collectDeclared(s, names);
+                break;
+            case StmtKind.IF:
+                collectDeclared(((IfStmt) stmt).t, names);
+                if (((IfStmt) stmt).e != null) collectDeclared(((IfStmt) stmt).e, names);
+                break;
+            case StmtKind.LOOP:
+                collectDeclared(((LoopStmt) stmt).body, names);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // --- Inlining ---
+
+    // The expression of an inlinable body, or null
+    private static Expr inlineBody(FuncDef def) {
+        if (!(def.body instanceof BlockStmt)) return null;
+        BlockStmt block = (BlockStmt) def.body;
+        if (!block.declarations.isEmpty() || block.statements.size() != 1) return null;
+        if (!(block.statements.get(0) instanceof ReturnStmt)) return null;
+        Expr expr = ((ReturnStmt) block.statements.get(0)).expr;
+        return size(expr) <= INLINE_MAX_SIZE ? expr : null;
+    }
+
+    private Expr inline(FuncCall call) {
+        FuncDef target = inlinable.get(call.name);
+        if (target == null || isLocal(call.name)) return null;
+        Expr body = inlineBody(target);
+        Set<String> called = new HashSet<>();
+        collectCalls(body, called);
+
+        Map<String, Expr> params = new HashMap<>();
+        for (int i = 0; i < call.args.size(); i++) {
+            String param = target.params.get(i).name;
+            Expr arg = call.args.get(i);
+            if (!isPure(arg) || called.contains(param)) return null; // a called param is not an Expr
+            if (uses(body, param) > 1 && size(arg) > DUPLICATE_MAX_SIZE) return null;
+            params.put(param, arg);
+        }
+        Set<String> free = new HashSet<>();
+        freeNames(body, params.keySet(), free);
+        for (String name : free) {
+            if (isLocal(name)) return null; // would be captured by a local at the call site
+        }
+
+        InlinedCall inlined = new InlinedCall(call, substitute(body, params), target);
+        inlined.type = call.type;
+        return inlined;
+    }
+
+    // Fresh copy of expr with the parameters replaced, keeping the checked types
+    private static Expr substitute(Expr expr, Map<String, Expr> params) {
+        Expr copy;
+        switch (expr.kind) {
+            case ExprKind.ID: {
+                Expr arg = params.get(((IdExpr) expr).name);
+                if (arg != null) return substitute(arg, Map.of());
+                copy = new IdExpr(((IdExpr) expr).name);
+                break;
+            }
+            case ExprKind.INT_LITERAL:
+                copy = new IntLiteral(((IntLiteral) expr).value);
+                break;
+            case ExprKind.BOOL_LITERAL:
+                copy = new BoolLiteral(((BoolLiteral) expr).value);
+                break;
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                copy = new BinaryExpr(substitute(bin.left, params), bin.op, substitute(bin.right, params));
+                break;
+            }
+            case ExprKind.CALL: {
+                FuncCall call = (FuncCall) expr;
+                List<Expr> args = new ArrayList<>();
+                for (Expr arg : call.args) args.add(substitute(arg, params));
+                copy = new FuncCall(call.name, args);
+                break;
+            }
+            case ExprKind.INLINED_CALL: {
+                InlinedCall inlined = (InlinedCall) expr;
+                copy = new InlinedCall((FuncCall) substitute(inlined.call, params), substitute(inlined.body, params), inlined.target);
+                break;
+            }
+            default:
+                throw new UnsupportedOperationException("Unknown Expr: " + expr);
+        }
+        copy.type = expr.type;
+        return copy;
+    }
+
+    // Evaluating it has no effect and cannot fail (DIV can trap on zero)
+    private static boolean isPure(Expr expr) {
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL:
+            case ExprKind.BOOL_LITERAL:
+            case ExprKind.ID:
+                return true;
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                return bin.op != Operator.DIV && isPure(bin.left) && isPure(bin.right);
+            }
+            default: return false;
+        }
+    }
+
+    private static int size(Expr expr) {
+        switch (expr.kind) {
+            case ExprKind.BINARY: return 1 + size(((BinaryExpr) expr).left) + size(((BinaryExpr) expr).right);
+            case ExprKind.CALL: {
+                int n = 1;
+                for (Expr arg : ((FuncCall) expr).args) n += size(arg);
+                return n;
+            }
+            case ExprKind.INLINED_CALL: return size(((InlinedCall) expr).body);
+            default: return 1;
+        }
+    }
+
+    private static int uses(Expr expr, String name) {
+        switch (expr.kind) {
+            case ExprKind.ID: return ((IdExpr) expr).name.equals(name) ? 1 : 0;
+            case ExprKind.BINARY: return uses(((BinaryExpr) expr).left, name) + uses(((BinaryExpr) expr).right, name);
+            case ExprKind.CALL: {
+                int n = 0;
+                for (Expr arg : ((FuncCall) expr).args) n += uses(arg, name);
+                return n;
+            }
+            case ExprKind.INLINED_CALL: return uses(((InlinedCall) expr).call, name) + uses(((InlinedCall) expr).body, name);
+            default: return 0;
+        }
+    }
+
+    private static void freeNames(Expr expr, Set<String> bound, Set<String> names) {
+        switch (expr.kind) {
+            case ExprKind.ID:
+                if (!bound.contains(((IdExpr) expr).name)) names.add(((IdExpr) expr).name);
+                break;
+            case ExprKind.BINARY:
+                freeNames(((BinaryExpr) expr).left, bound, names);
+                freeNames(((BinaryExpr) expr).right, bound, names);
+                break;
+            case ExprKind.CALL:
+                names.add(((FuncCall) expr).name);
+                for (Expr arg : ((FuncCall) expr).args) freeNames(arg, bound, names);
+                break;
+            case ExprKind.INLINED_CALL:
+                freeNames(((InlinedCall) expr).call, bound, names);
+                freeNames(((InlinedCall) expr).body, bound, names);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // --- Call graph ---
+
+    private boolean reaches(String from, String to, Set<String> seen) {
+        for (String callee : callGraph.getOrDefault(from, Set.of())) {
+            if (callee.equals(to)) return true;
+            if (seen.add(callee) && reaches(callee, to, seen)) return true;
+        }
+        return false;
+    }
+
+    private static Set<String> calledNames(Stmt stmt) {
+        Set<String> names = new HashSet<>();
+        collectCalls(stmt, names);
+        return names;
+    }
+
+    private static void collectCalls(Stmt stmt, Set<String> names) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN:
+                collectCalls(((AssignStmt) stmt).expr, names);
+                break;
+            case StmtKind.BLOCK:
+                for (Stmt s : ((BlockStmt) stmt).statements) collectCalls(s, names);
+                break;
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                collectCalls(ifStmt.conditional, names);
+                collectCalls(ifStmt.t, names);
+                if (ifStmt.e != null) collectCalls(ifStmt.e, names);
+                break;
+            }
+            case StmtKind.LOOP:
+                collectCalls(((LoopStmt) stmt).conditional, names);
+                collectCalls(((LoopStmt) stmt).body, names);
+                break;
+            case StmtKind.RETURN:
+                collectCalls(((ReturnStmt) stmt).expr, names);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void collectCalls(Expr expr, Set<String> names) {
+        switch (expr.kind) {
+            case ExprKind.BINARY:
+                collectCalls(((BinaryExpr) expr).left, names);
+                collectCalls(((BinaryExpr) expr).right, names);
+                break;
+            case ExprKind.CALL:
+                names.add(((FuncCall) expr).name);
+                for (Expr arg : ((FuncCall) expr).args) collectCalls(arg, names);
+                break;
+            case ExprKind.INLINED_CALL:
+                collectCalls(((InlinedCall) expr).call, names);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Same semantics as Interpreter.evaluate(BinaryExpr); null if it cannot be folded
+    private static Expr fold(BinaryExpr bin, Expr left, Expr right) {
+        if (left instanceof BoolLiteral && (bin.op == Operator.AND || bin.op == Operator.OR)) {
+            // Short-circuit: a deciding left operand drops the right one
+            boolean l = ((BoolLiteral) left).value;
+            return l == (bin.op == Operator.OR) ? literal(l) : right;
+        }
+        if (left instanceof IntLiteral && right instanceof IntLiteral) {
+            int l = ((IntLiteral) left).value, r = ((IntLiteral) right).value;
+            switch (bin.op) {
+                case ADD: return literal(l + r, Type.INTEGER);
+                case SUB: return literal(l - r, Type.INTEGER);
+                case MUL: return literal(l * r, Type.INTEGER);
+                case DIV: return r == 0 ? null : literal(l / r, Type.INTEGER); // keeps the ArithmeticException
+                case LT:  return literal(l < r);
+                case GT:  return literal(l > r);
+                case EQ:  return literal(l == r);
+                default:  return null;
+            }
+        }
+        if (left instanceof BoolLiteral && right instanceof BoolLiteral) {
+            boolean l = ((BoolLiteral) left).value, r = ((BoolLiteral) right).value;
+            switch (bin.op) {
+                case AND: return literal(l && r);
+                case OR:  return literal(l || r);
+                case EQ:  return literal(l == r);
+                default:  return null;
+            }
+        }
+        return null;
+    }
+
+    private boolean isLocal(String name) {
+        for (Map<String, Boolean> scope : scopes) {
+            if (scope.containsKey(name)) return true;
+        }
+        return false;
+    }
+
+    // Declared with var and possibly not assigned yet, or not declared at all:
+    // reading it can fail
+    private boolean mayBeUninitialized(String name) {
+        for (Map<String, Boolean> scope : scopes) {
+            Boolean untyped = scope.get(name);
+            if (untyped != null) return untyped;
+        }
+        return globals.getOrDefault(name, true);
+    }
+
+    private static boolean isLiteral(Expr expr) {
+        return expr instanceof IntLiteral || expr instanceof BoolLiteral;
+    }
+
+    // Literals are not shared between trees: the Resolver and engines annotate nodes
+    private static Expr copyOf(Expr value) {
+        if (value instanceof IntLiteral) return literal(((IntLiteral) value).value, Type.INTEGER);
+        return literal(((BoolLiteral) value).value);
+    }
+
+    private static IntLiteral literal(int value, Type type) {
+        IntLiteral lit = new IntLiteral(value);
+        lit.type = TypeConst.of(type);
+        return lit;
+    }
+
+    private static BoolLiteral literal(boolean value) {
+        BoolLiteral lit = new BoolLiteral(value);
+        lit.type = TypeConst.BOOLEAN;
+        return lit;
+    }
+
+    // Every name the unit assigns, locals included; used conservatively
+    private static Set<String> assignedNames(AstNode node) {
+        Set<String> names = new HashSet<>();
+        if (node instanceof FuncDef) collectAssigned(((FuncDef) node).body, names);
+        else if (node instanceof Stmt) collectAssigned((Stmt) node, names);
+        return names;
+    }
+
+    private static void collectAssigned(Stmt stmt, Set<String> names) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN:
+                names.add(((AssignStmt) stmt).id);
+                break;
+            case StmtKind.BLOCK:
+                for (Stmt s : ((BlockStmt) stmt).statements) collectAssigned(s, names);
+                break;
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                collectAssigned(ifStmt.t, names);
+                if (ifStmt.e != null) collectAssigned(ifStmt.e, names);
+                break;
+            }
+            case StmtKind.LOOP:
+                collectAssigned(((LoopStmt) stmt).body, names);
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package simple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hand-written parser for the repl_unit grammar of SimpleParser.cup, giving
+// the same AstNode trees as the generated parser. Statements are parsed by
+// recursive descent and expressions by precedence climbing (Pratt), with the
+// binding powers of the grammar's precedence declarations. It scans the
+// input itself, one token ahead, with the SimpleLexer's rules and token
+// kinds (sym), so no Symbol is made per token and there are no tables to
+// decode when the class is first used.
+//
+// Where the grammar is lenient, so is this parser: a parameter or argument
+// list may start with a comma, as an empty first entry is allowed.
+public final class PrattParser {
+    // Binding powers, loosest first: precedence left OR, AND, EQ, (LT, GT),
+    // (PLUS, MINUS), (STAR, SLASH), then right NOT, which only a prefix has
+    private static final int NOT_POWER = 7;
+
+    private final String input;
+    private int pos;           // next character to scan
+    private int line, column;  // of pos, from 0 as in SimpleLexer
+
+    // The lookahead token
+    private int kind;          // a sym constant
+    private String text;       // as written
+    private int tokenLine, tokenColumn;
+
+    public PrattParser(String input) {
+        this.input = input;
+        advance();
+    }
+
+    // A whole REPL unit: a function definition, a declaration, a statement
+    // or an expression. Nesting takes Java stack, where the generated
+    // parser keeps its own: very deep input is refused.
+    public AstNode parse() throws Exception {
+        try {
+            return unit();
+        } catch (StackOverflowError e) {
+            throw new Exception("Syntax error: input nested too deeply");
+        }
+    }
+
+    private AstNode unit() throws Exception {
+        AstNode unit;
+        switch (kind) {
+            case sym.FUNC:
+                unit = funcDefinition();
+                break;
+            case sym.INT: case sym.BOOLEAN: case sym.VAR:
+                unit = declaration();
+                break;
+            case sym.LEFT_BRACE: case sym.IF: case sym.WHILE: case sym.RETURN:
+                unit = stmt();
+                break;
+            case sym.IDENTIFIER: {
+                String name = text;
+                advance();
+                unit = kind == sym.ASSIGN ? assignment(name) : infix(identifier(name), 0);
+                break;
+            }
+            default:
+                unit = expr(0);
+        }
+        expect(sym.EOF);
+        return unit;
+    }
+
+    private FuncDef funcDefinition() throws Exception {
+        advance(); // func
+        String name = identifierText();
+        expect(sym.LEFT_PAREN);
+        List<VarDecl> params = new ArrayList<>();
+        if (kind != sym.RIGHT_PAREN && kind != sym.COMMA) params.add(declaration());
+        while (kind == sym.COMMA) {
+            advance();
+            params.add(declaration());
+        }
+        expect(sym.RIGHT_PAREN);
+        return new FuncDef(name, params, stmt());
+    }
+
+    private VarDecl declaration() throws Exception {
+        Type type;
+        switch (kind) {
+            case sym.INT: type = Type.INTEGER; break;
+            case sym.BOOLEAN: type = Type.BOOLEAN; break;
+            case sym.VAR: type = null; break;
+            default: throw unexpected("a type");
+        }
+        advance();
+        return new VarDecl(identifierText(), type);
+    }
+
+    private Stmt stmt() throws Exception {
+        switch (kind) {
+            case sym.LEFT_BRACE:
+                return block();
+            case sym.IDENTIFIER: {
+                String name = text;
+                advance();
+                if (kind != sym.ASSIGN) throw unexpected(describe(sym.ASSIGN));
+                return assignment(name);
+            }
+            case sym.IF: {
+                advance();
+                Expr cond = condition();
+                Stmt t = stmt();
+                if (kind != sym.ELSE) return new IfStmt(cond, t, null);
+                advance(); // an else belongs to the nearest if
+                return new IfStmt(cond, t, stmt());
+            }
+            case sym.WHILE: {
+                advance();
+                Expr cond = condition();
+                return new LoopStmt(cond, stmt());
+            }
+            case sym.RETURN: {
+                advance();
+                Expr e = expr(0);
+                expect(sym.SEMICOLON);
+                return new ReturnStmt(e);
+            }
+            default:
+                throw unexpected("a statement");
+        }
+    }
+
+    // Declarations first, then statements
+    private BlockStmt block() throws Exception {
+        expect(sym.LEFT_BRACE);
+        List<VarDecl> decls = new ArrayList<>();
+        while (kind == sym.INT || kind == sym.BOOLEAN || kind == sym.VAR) {
+            decls.add(declaration());
+            expect(sym.SEMICOLON);
+        }
+        List<Stmt> stmts = new ArrayList<>();
+        while (kind != sym.RIGHT_BRACE) stmts.add(stmt());
+        advance();
+        return new BlockStmt(decls, stmts);
+    }
+
+    // The rest of 'name := e;'
+    private AssignStmt assignment(String name) throws Exception {
+        expect(sym.ASSIGN);
+        Expr e = expr(0);
+        expect(sym.SEMICOLON);
+        return new AssignStmt(name, e);
+    }
+
+    // '(' expr ')' after if or while
+    private Expr condition() throws Exception {
+        expect(sym.LEFT_PAREN);
+        Expr cond = expr(0);
+        expect(sym.RIGHT_PAREN);
+        return cond;
+    }
+
+    // An expression whose operators all bind tighter than minPower
+    private Expr expr(int minPower) throws Exception {
+        return infix(prefix(), minPower);
+    }
+
+    // Extends 'left' with the operators that follow it and bind tighter
+    // than minPower; equal powers go to the left
+    private Expr infix(Expr left, int minPower) throws Exception {
+        while (true) {
+            int power = power(kind);
+            if (power <= minPower) return left;
+            Operator op = operator(kind);
+            advance();
+            left = new BinaryExpr(left, op, expr(power));
+        }
+    }
+
+    private Expr prefix() throws Exception {
+        switch (kind) {
+            case sym.INTEGER_LIT: {
+                int value = Integer.parseInt(text);
+                advance();
+                return new IntLiteral(value);
+            }
+            case sym.TRUE:
+                advance();
+                return new BoolLiteral(true);
+            case sym.FALSE:
+                advance();
+                return new BoolLiteral(false);
+            case sym.IDENTIFIER: {
+                String name = text;
+                advance();
+                return identifier(name);
+            }
+            case sym.LEFT_PAREN: {
+                advance();
+                Expr e = expr(0);
+                expect(sym.RIGHT_PAREN);
+                return e;
+            }
+            case sym.NOT:
+                advance();
+                // !e is e = false: every pass already handles boolean equality
+                return new BinaryExpr(expr(NOT_POWER), Operator.EQ, new BoolLiteral(false));
+            default:
+                throw unexpected("an expression");
+        }
+    }
+
+    // A variable, or a call if '(' follows the name
+    private Expr identifier(String name) throws Exception {
+        if (kind != sym.LEFT_PAREN) return new IdExpr(name);
+        advance();
+        List<Expr> args = new ArrayList<>();
+        if (kind != sym.RIGHT_PAREN && kind != sym.COMMA) args.add(expr(0));
+        while (kind == sym.COMMA) {
+            advance();
+            args.add(expr(0));
+        }
+        expect(sym.RIGHT_PAREN);
+        return new FuncCall(name, args);
+    }
+
+    // 0 if the token is not a binary operator
+    private static int power(int kind) {
+        switch (kind) {
+            case sym.OR: return 1;
+            case sym.AND: return 2;
+            case sym.EQ: return 3;
+            case sym.LT: case sym.GT: return 4;
+            case sym.PLUS: case sym.MINUS: return 5;
+            case sym.STAR: case sym.SLASH: return 6;
+            default: return 0;
+        }
+    }
+
+    private static Operator operator(int kind) {
+        switch (kind) {
+            case sym.OR: return Operator.OR;
+            case sym.AND: return Operator.AND;
+            case sym.EQ: return Operator.EQ;
+            case sym.LT: return Operator.LT;
+            case sym.GT: return Operator.GT;
+            case sym.PLUS: return Operator.ADD;
+            case sym.MINUS: return Operator.SUB;
+            case sym.STAR: return Operator.MUL;
+            case sym.SLASH: return Operator.DIV;
+            default: throw new IllegalArgumentException("Not a binary operator: " + kind);
+        }
+    }
+
+    private String identifierText() throws Exception {
+        if (kind != sym.IDENTIFIER) throw unexpected(describe(sym.IDENTIFIER));
+        String name = text;
+        advance();
+        return name;
+    }
+
+    private void expect(int expected) throws Exception {
+        if (kind != expected) throw unexpected(describe(expected));
+        advance();
+    }
+
+    private Exception unexpected(String expected) {
+        String found = kind == sym.EOF ? "end of input" : "'" + text + "'";
+        return new Exception("Syntax error at line " + tokenLine + ", column " + tokenColumn
+                + ": expected " + expected + " but found " + found);
+    }
+
+    private static String describe(int kind) {
+        switch (kind) {
+            case sym.EOF: return "end of input";
+            case sym.IDENTIFIER: return "a name";
+            case sym.LEFT_PAREN: return "'('";
+            case sym.RIGHT_PAREN: return "')'";
+            case sym.LEFT_BRACE: return "'{'";
+            case sym.SEMICOLON: return "';'";
+            case sym.ASSIGN: return "':='";
+            default: return sym.terminalNames[kind];
+        }
+    }
+
+    // Scans the next token into kind and text, with SimpleLexer's rules:
+    // the longest match, keywords before names
+    private void advance() {
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+            if (c == '\n' || c == '\r' && (pos + 1 == input.length() || input.charAt(pos + 1) != '\n')) {
+                line++;
+                column = 0;
+            } else if (c == ' ' || c == '\t' || c == '\r') {
+                column++;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        tokenLine = line;
+        tokenColumn = column;
+        if (pos == input.length()) {
+            kind = sym.EOF;
+            text = "";
+            return;
+        }
+        int start = pos;
+        char c = input.charAt(pos++);
+        switch (c) {
+            case '(': kind = sym.LEFT_PAREN; break;
+            case ')': kind = sym.RIGHT_PAREN; break;
+            case '{': kind = sym.LEFT_BRACE; break;
+            case '}': kind = sym.RIGHT_BRACE; break;
+            case ',': kind = sym.COMMA; break;
+            case ';': kind = sym.SEMICOLON; break;
+            case '=': kind = sym.EQ; break;
+            case '<': kind = sym.LT; break;
+            case '>': kind = sym.GT; break;
+            case '+': kind = sym.PLUS; break;
+            case '-': kind = sym.MINUS; break;
+            case '*': kind = sym.STAR; break;
+            case '/': kind = sym.SLASH; break;
+            case '!': kind = sym.NOT; break;
+            case ':': kind = pair('=', sym.ASSIGN, c); break;
+            case '&': kind = pair('&', sym.AND, c); break;
+            case '|': kind = pair('|', sym.OR, c); break;
+            default:
+                if (c >= '0' && c <= '9') {
+                    while (pos < input.length() && isDigit(input.charAt(pos))) pos++;
+                    kind = sym.INTEGER_LIT;
+                } else if (isLetter(c)) {
+                    while (pos < input.length() && (isLetter(input.charAt(pos)) || isDigit(input.charAt(pos))
+                            || input.charAt(pos) == '_')) pos++;
+                    text = input.substring(start, pos);
+                    kind = keyword(text);
+                    column += pos - start;
+                    return;
+                } else {
+                    throw illegal(c);
+                }
+        }
+        text = input.substring(start, pos);
+        column += pos - start;
+    }
+
+    // The two-character token 'first second', where first alone is illegal
+    private int pair(char second, int kind, char first) {
+        if (pos == input.length() || input.charAt(pos) != second) throw illegal(first);
+        pos++;
+        return kind;
+    }
+
+    private RuntimeException illegal(char c) {
+        return new RuntimeException("Illegal character '" + c + "' at line " + line + ", column " + column);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static int keyword(String name) {
+        switch (name) {
+            case "func": return sym.FUNC;
+            case "if": return sym.IF;
+            case "else": return sym.ELSE;
+            case "while": return sym.WHILE;
+            case "return": return sym.RETURN;
+            case "var": return sym.VAR;
+            case "int": return sym.INT;
+            case "boolean": return sym.BOOLEAN;
+            case "true": return sym.TRUE;
+            case "false": return sym.FALSE;
+            default: return sym.IDENTIFIER;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package simple;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Decides which functions the Interpreter may memoize, over resolved units.
+// A function is pure if its parameters and result are ints or booleans, it
+// assigns no global, it only calls globals, and every global it refers to
+// is a pure function (itself included) that nothing assigns. Its result
+// then depends on its arguments alone, so its Closure gets a MemoTable.
+// Assignments are seen before the unit containing them runs: a global that
+// any code may assign is never relied on again, and the functions that
+// relied on it lose their tables. The Interpreter drops a table itself if
+// it hardly ever hits.
+class PurityAnalysis {
+    private final Map<String, Closure> pure = new HashMap<>(); // by global name
+    private final Set<String> assigned = new HashSet<>(); // globals some code may assign
+
+    // Called for every unit before it runs
+    void observe(AstNode node) {
+        Set<String> names = new HashSet<>();
+        if (node instanceof FuncDef) {
+            collectAssigned(((FuncDef) node).body, names, true);
+            invalidate(((FuncDef) node).name); // rebinding
+        } else if (node instanceof VarDecl) {
+            invalidate(((VarDecl) node).name); // rebinding, at top level
+        } else if (node instanceof Stmt) {
+            collectAssigned((Stmt) node, names, false);
+        }
+        for (String name : names) {
+            if (assigned.add(name)) invalidate(name);
+        }
+    }
+
+    // Called when a FuncDef runs, with the closure it binds
+    void define(Closure closure) {
+        if (!isPure(closure.def)) return;
+        closure.memo = new MemoTable(MemoTable.DEFAULT_CAPACITY);
+        pure.put(closure.def.name, closure);
+    }
+
+    Map<String, MemoTable> tables() {
+        Map<String, MemoTable> tables = new HashMap<>();
+        for (Closure closure : pure.values()) {
+            if (closure.memo != null) tables.put(closure.def.name, closure.memo);
+        }
+        return tables;
+    }
+
+    private void invalidate(String name) {
+        Closure closure = pure.remove(name);
+        if (closure != null) closure.memo = null;
+        List<String> dependents = new ArrayList<>();
+        for (Closure other : pure.values()) {
+            if (other.def.freeVars.contains(name)) dependents.add(other.def.name);
+        }
+        for (String dependent : dependents) invalidate(dependent);
+    }
+
+    private boolean isPure(FuncDef def) {
+        for (TypeExpr param : def.type.paramTypes) {
+            if (!(param.find() instanceof TypeConst)) return false;
+        }
+        if (!(def.type.returnType.find() instanceof TypeConst)) return false;
+        for (String name : def.freeVars) {
+            if (assigned.contains(name)) return false;
+            if (!name.equals(def.name) && !pure.containsKey(name)) return false;
+        }
+        return isPure(def.body);
+    }
+
+    // No global assignments, and no calls through a local
+    private static boolean isPure(Stmt stmt) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                return assign.depth == 0 && isPure(assign.expr);
+            }
+            case StmtKind.BLOCK:
+                for (Stmt s : ((BlockStmt) stmt).statements) {
+                    if (!isPure(s)) return false;
+                }
+                return true;
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                return isPure(ifStmt.conditional) && isPure(ifStmt.t) && (ifStmt.e == null || isPure(ifStmt.e));
+            }
+            case StmtKind.LOOP: return isPure(((LoopStmt) stmt).conditional) && isPure(((LoopStmt) stmt).body);
+            case StmtKind.RETURN: return isPure(((ReturnStmt) stmt).expr);
+            case StmtKind.VAR_DECL: return true;
+            default: return false; // a kind added without a case here is not trusted
+        }
+    }
+
+    private static boolean isPure(Expr expr) {
+        switch (expr.kind) {
+            case ExprKind.BINARY: return isPure(((BinaryExpr) expr).left) && isPure(((BinaryExpr) expr).right);
+            case ExprKind.CALL: {
+                FuncCall call = (FuncCall) expr;
+                if (call.depth == 0) return false;
+                for (Expr arg : call.args) {
+                    if (!isPure(arg)) return false;
+                }
+                return true;
+            }
+            case ExprKind.INLINED_CALL: return isPure(((InlinedCall) expr).call) && isPure(((InlinedCall) expr).body);
+            case ExprKind.INT_LITERAL: case ExprKind.BOOL_LITERAL: case ExprKind.ID: return true;
+            default: return false;
+        }
+    }
+
+    // Names the unit may assign as globals: inside a function only those
+    // resolved to the global frame, at top level every name, block locals too
+    private static void collectAssigned(Stmt stmt, Set<String> names, boolean inFunction) {
+        switch (stmt.kind) {
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                if (!inFunction || assign.depth > 0) names.add(assign.id);
+                break;
+            }
+            case StmtKind.BLOCK:
+                for (Stmt s : ((BlockStmt) stmt).statements) collectAssigned(s, names, inFunction);
+                break;
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                collectAssigned(ifStmt.t, names, inFunction);
+                if (ifStmt.e != null) collectAssigned(ifStmt.e, names, inFunction);
+                break;
+            }
+            case StmtKind.LOOP:
+                collectAssigned(((LoopStmt) stmt).body, names, inFunction);
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package simple;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+// Static resolution pass, run after TypeChecker.check.
+// Labels every variable reference with a (depth, slot) address so the
+// Interpreter can index Frame arrays instead of looking names up at run time.
+//   depth 0: the current frame (function frame, or the global frame at top level)
+//   depth 1: the global frame, seen from inside a function
+// Functions are only defined at top level, so a function's free variables
+// are all globals; they are recorded on the FuncDef and read in place from
+// the shared global frame, which is all a closure captures.
+public class Resolver {
+    private final Map<String, Integer> globals = new HashMap<>(); // persistent across REPL units
+    private final Deque<Map<String, Integer>> scopes = new ArrayDeque<>(); // block scopes of the current frame
+    private boolean inFunction;
+    private FuncDef function; // function being resolved, if any
+    private int nextSlot;  // next free slot in the current frame
+    private int frameSize; // high-water mark of the current frame
+
+    // New Entry Point for REPL
+    public void resolve(AstNode node) {
+        scopes.clear();
+        inFunction = false;
+        // Top-level block locals live in the global frame above the named globals;
+        // they are dead once the unit finishes, so later globals may reuse them.
+        nextSlot = globals.size();
+        if (node instanceof FuncDef) resolveFuncDef((FuncDef) node);
+        else if (node instanceof VarDecl) ((VarDecl) node).slot = declareGlobal(((VarDecl) node).name);
+        else if (node instanceof Stmt) resolveStmt((Stmt) node);
+        else if (node instanceof Expr) resolveExpr((Expr) node);
+        else throw new UnsupportedOperationException("Unknown AST Node for resolving");
+    }
+
+    // A redefinition keeps the name's slot, so code already resolved to it
+    // sees the new value
+    private int declareGlobal(String name) {
+        Integer slot = globals.get(name);
+        if (slot == null) {
+            slot = globals.size();
+            globals.put(name, slot);
+        }
+        return slot;
+    }
+
+    private void resolveFuncDef(FuncDef def) {
+        def.slot = declareGlobal(def.name); // visible to the body, as in the TypeChecker
+
+        inFunction = true;
+        function = def;
+        def.freeVars = new LinkedHashSet<>();
+        nextSlot = 0;
+        frameSize = 0;
+        scopes.push(new HashMap<>());
+        try {
+            for (VarDecl param : def.params) declareLocal(param);
+            resolveStmt(def.body);
+        } finally {
+            scopes.pop();
+            inFunction = false;
+            function = null;
+        }
+        def.frameSize = frameSize;
+    }
+
+    private void declareLocal(VarDecl decl) {
+        decl.slot = nextSlot++;
+        frameSize = Math.max(frameSize, nextSlot);
+        scopes.peek().put(decl.name, decl.slot);
+    }
+
+    private void resolveStmt(Stmt stmt) {
+        switch (stmt.kind) {
+            case StmtKind.VAR_DECL:
+                declareLocal((VarDecl) stmt);
+                break;
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                resolveExpr(assign.expr);
+                int[] addr = lookup(assign.id);
+                assign.depth = addr[0];
+                assign.slot = addr[1];
+                break;
+            }
+            case StmtKind.BLOCK: {
+                BlockStmt block = (BlockStmt) stmt;
+                int mark = nextSlot;
+                scopes.push(new HashMap<>());
+                try {
+                    for (VarDecl decl : block.declarations) declareLocal(decl);
+                    for (Stmt s : block.statements) resolveStmt(s);
+                } finally {
+                    scopes.pop();
+                    nextSlot = mark; // sibling blocks reuse the slots
+                }
+                break;
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                resolveExpr(ifStmt.conditional);
+                resolveStmt(ifStmt.t);
+                if (ifStmt.e != null) resolveStmt(ifStmt.e);
+                break;
+            }
+            case StmtKind.LOOP: {
+                LoopStmt loop = (LoopStmt) stmt;
+                resolveExpr(loop.conditional);
+                resolveStmt(loop.body);
+                break;
+            }
+            case StmtKind.RETURN:
+                resolveExpr(((ReturnStmt) stmt).expr);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown Stmt: " + stmt);
+        }
+    }
+
+    private void resolveExpr(Expr expr) {
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL:
+            case ExprKind.BOOL_LITERAL:
+                break;
+            case ExprKind.ID: {
+                IdExpr id = (IdExpr) expr;
+                int[] addr = lookup(id.name);
+                id.depth = addr[0];
+                id.slot = addr[1];
+                break;
+            }
+            case ExprKind.BINARY:
+                resolveExpr(((BinaryExpr) expr).left);
+                resolveExpr(((BinaryExpr) expr).right);
+                break;
+            case ExprKind.CALL: {
+                FuncCall call = (FuncCall) expr;
+                for (Expr arg : call.args) resolveExpr(arg);
+                int[] addr = lookup(call.name);
+                call.depth = addr[0];
+                call.slot = addr[1];
+                break;
+            }
+            case ExprKind.INLINED_CALL:
+                resolveExpr(((InlinedCall) expr).call);
+                resolveExpr(((InlinedCall) expr).body);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown Expr: " + expr);
+        }
+    }
+
+    private int[] lookup(String name) {
+        for (Map<String, Integer> scope : scopes) {
+            Integer slot = scope.get(name);
+            if (slot != null) return new int[] { 0, slot };
+        }
+        Integer slot = globals.get(name);
+        if (slot != null) {
+            if (!inFunction) return new int[] { 0, slot };
+            function.freeVars.add(name);
+            return new int[] { 1, slot };
+        }
+        throw new RuntimeException("Variable named " + name + " Not declared in this program");
+    }
+}
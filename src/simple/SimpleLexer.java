@@ -62,13 +62,13 @@ public class SimpleLexer implements java_cup.runtime.Scanner {
   private static final int [] ZZ_CMAP_BLOCKS = zzUnpackcmap_blocks();
 
   private static final String ZZ_CMAP_BLOCKS_PACKED_0 =
-    "\11\0\2\1\2\0\1\1\22\0\1\1\7\0\1\2"+
-    "\1\3\1\4\1\5\1\6\1\7\1\0\1\10\12\11"+
-    "\1\12\1\13\1\14\1\15\1\16\2\0\32\17\4\0"+
-    "\1\20\1\0\1\21\1\22\1\23\1\17\1\24\1\25"+
-    "\1\17\1\26\1\27\2\17\1\30\1\17\1\31\1\32"+
-    "\2\17\1\33\1\34\1\35\1\36\1\37\1\40\3\17"+
-    "\1\41\1\0\1\42\u0182\0";
+    "\11\0\2\1\2\0\1\1\22\0\1\1\1\2\4\0"+
+    "\1\3\1\0\1\4\1\5\1\6\1\7\1\10\1\11"+
+    "\1\0\1\12\12\13\1\14\1\15\1\16\1\17\1\20"+
+    "\2\0\32\21\4\0\1\22\1\0\1\23\1\24\1\25"+
+    "\1\21\1\26\1\27\1\21\1\30\1\31\2\21\1\32"+
+    "\1\21\1\33\1\34\2\21\1\35\1\36\1\37\1\40"+
+    "\1\41\1\42\3\21\1\43\1\44\1\45\u0182\0";
 
   private static int [] zzUnpackcmap_blocks() {
     int [] result = new int[512];
@@ -95,14 +95,15 @@ public class SimpleLexer implements java_cup.runtime.Scanner {
   private static final int [] ZZ_ACTION = zzUnpackAction();
 
   private static final String ZZ_ACTION_PACKED_0 =
-    "\1\0\1\1\1\2\1\3\1\4\1\5\1\6\1\7"+
-    "\1\10\1\11\1\12\1\1\1\13\1\14\1\15\1\16"+
-    "\11\17\1\20\1\21\1\22\4\17\1\23\11\17\1\24"+
-    "\2\17\1\25\2\17\1\26\1\17\1\27\1\17\1\30"+
-    "\2\17\1\31\1\17\1\32\1\17\1\33\1\34";
+    "\1\0\1\1\1\2\1\3\1\1\1\4\1\5\1\6"+
+    "\1\7\1\10\1\11\1\12\1\13\1\1\1\14\1\15"+
+    "\1\16\1\17\11\20\1\21\1\1\1\22\1\23\1\24"+
+    "\4\20\1\25\5\20\1\26\4\20\1\27\2\20\1\30"+
+    "\2\20\1\31\1\20\1\32\1\20\1\33\2\20\1\34"+
+    "\1\20\1\35\1\20\1\36\1\37";
 
   private static int [] zzUnpackAction() {
-    int [] result = new int[61];
+    int [] result = new int[66];
     int offset = 0;
     offset = zzUnpackAction(ZZ_ACTION_PACKED_0, offset, result);
     return result;
@@ -127,17 +128,18 @@ public class SimpleLexer implements java_cup.runtime.Scanner {
   private static final int [] ZZ_ROWMAP = zzUnpackRowMap();
 
   private static final String ZZ_ROWMAP_PACKED_0 =
-    "\0\0\0\43\0\106\0\43\0\43\0\43\0\43\0\43"+
-    "\0\43\0\43\0\151\0\214\0\43\0\43\0\43\0\43"+
-    "\0\257\0\322\0\365\0\u0118\0\u013b\0\u015e\0\u0181\0\u01a4"+
-    "\0\u01c7\0\43\0\43\0\43\0\u01ea\0\u020d\0\u0230\0\u0253"+
-    "\0\257\0\u0276\0\u0299\0\u02bc\0\u02df\0\u0302\0\u0325\0\u0348"+
-    "\0\u036b\0\u038e\0\257\0\u03b1\0\u03d4\0\257\0\u03f7\0\u041a"+
-    "\0\257\0\u043d\0\257\0\u0460\0\257\0\u0483\0\u04a6\0\257"+
-    "\0\u04c9\0\257\0\u04ec\0\257\0\257";
+    "\0\0\0\46\0\114\0\46\0\162\0\46\0\46\0\46"+
+    "\0\46\0\46\0\46\0\46\0\230\0\276\0\46\0\46"+
+    "\0\46\0\46\0\344\0\u010a\0\u0130\0\u0156\0\u017c\0\u01a2"+
+    "\0\u01c8\0\u01ee\0\u0214\0\46\0\u023a\0\46\0\46\0\46"+
+    "\0\u0260\0\u0286\0\u02ac\0\u02d2\0\344\0\u02f8\0\u031e\0\u0344"+
+    "\0\u036a\0\u0390\0\46\0\u03b6\0\u03dc\0\u0402\0\u0428\0\344"+
+    "\0\u044e\0\u0474\0\344\0\u049a\0\u04c0\0\344\0\u04e6\0\344"+
+    "\0\u050c\0\344\0\u0532\0\u0558\0\344\0\u057e\0\344\0\u05a4"+
+    "\0\344\0\344";
 
   private static int [] zzUnpackRowMap() {
-    int [] result = new int[61];
+    int [] result = new int[66];
     int offset = 0;
     offset = zzUnpackRowMap(ZZ_ROWMAP_PACKED_0, offset, result);
     return result;
@@ -162,37 +164,38 @@ public class SimpleLexer implements java_cup.runtime.Scanner {
   private static final String ZZ_TRANS_PACKED_0 =
     "\1\2\1\3\1\4\1\5\1\6\1\7\1\10\1\11"+
     "\1\12\1\13\1\14\1\15\1\16\1\17\1\20\1\21"+
-    "\1\2\1\21\1\22\1\21\1\23\1\24\1\21\1\25"+
-    "\3\21\1\26\1\21\1\27\1\21\1\30\1\31\1\32"+
-    "\1\33\44\0\1\3\52\0\1\13\46\0\1\34\36\0"+
-    "\1\21\5\0\22\21\13\0\1\21\5\0\13\21\1\35"+
-    "\6\21\13\0\1\21\5\0\11\21\1\36\10\21\13\0"+
-    "\1\21\5\0\2\21\1\37\14\21\1\40\2\21\13\0"+
-    "\1\21\5\0\6\21\1\41\3\21\1\42\7\21\13\0"+
-    "\1\21\5\0\5\21\1\43\14\21\13\0\1\21\5\0"+
-    "\14\21\1\44\5\21\13\0\1\21\5\0\2\21\1\45"+
-    "\17\21\13\0\1\21\5\0\7\21\1\46\12\21\13\0"+
-    "\1\21\5\0\13\21\1\47\6\21\13\0\1\21\5\0"+
-    "\15\21\1\50\4\21\13\0\1\21\5\0\11\21\1\51"+
-    "\10\21\13\0\1\21\5\0\12\21\1\52\7\21\13\0"+
-    "\1\21\5\0\16\21\1\53\3\21\13\0\1\21\5\0"+
-    "\16\21\1\54\3\21\13\0\1\21\5\0\17\21\1\55"+
-    "\2\21\13\0\1\21\5\0\14\21\1\56\5\21\13\0"+
-    "\1\21\5\0\10\21\1\57\11\21\13\0\1\21\5\0"+
-    "\11\21\1\60\10\21\13\0\1\21\5\0\5\21\1\61"+
-    "\14\21\13\0\1\21\5\0\15\21\1\62\4\21\13\0"+
-    "\1\21\5\0\4\21\1\63\15\21\13\0\1\21\5\0"+
-    "\17\21\1\64\2\21\13\0\1\21\5\0\5\21\1\65"+
-    "\14\21\13\0\1\21\5\0\11\21\1\66\10\21\13\0"+
-    "\1\21\5\0\5\21\1\67\14\21\13\0\1\21\5\0"+
-    "\5\21\1\70\14\21\13\0\1\21\5\0\14\21\1\71"+
-    "\5\21\13\0\1\21\5\0\5\21\1\72\14\21\13\0"+
-    "\1\21\5\0\2\21\1\73\17\21\13\0\1\21\5\0"+
-    "\12\21\1\74\7\21\13\0\1\21\5\0\12\21\1\75"+
-    "\7\21\2\0";
+    "\1\22\1\23\1\2\1\23\1\24\1\23\1\25\1\26"+
+    "\1\23\1\27\3\23\1\30\1\23\1\31\1\23\1\32"+
+    "\1\33\1\34\1\35\1\36\47\0\1\3\47\0\1\37"+
+    "\55\0\1\15\51\0\1\40\41\0\1\23\5\0\22\23"+
+    "\16\0\1\23\5\0\13\23\1\41\6\23\16\0\1\23"+
+    "\5\0\11\23\1\42\10\23\16\0\1\23\5\0\2\23"+
+    "\1\43\14\23\1\44\2\23\16\0\1\23\5\0\6\23"+
+    "\1\45\3\23\1\46\7\23\16\0\1\23\5\0\5\23"+
+    "\1\47\14\23\16\0\1\23\5\0\14\23\1\50\5\23"+
+    "\16\0\1\23\5\0\2\23\1\51\17\23\16\0\1\23"+
+    "\5\0\7\23\1\52\12\23\47\0\1\53\14\0\1\23"+
+    "\5\0\13\23\1\54\6\23\16\0\1\23\5\0\15\23"+
+    "\1\55\4\23\16\0\1\23\5\0\11\23\1\56\10\23"+
+    "\16\0\1\23\5\0\12\23\1\57\7\23\16\0\1\23"+
+    "\5\0\16\23\1\60\3\23\16\0\1\23\5\0\16\23"+
+    "\1\61\3\23\16\0\1\23\5\0\17\23\1\62\2\23"+
+    "\16\0\1\23\5\0\14\23\1\63\5\23\16\0\1\23"+
+    "\5\0\10\23\1\64\11\23\16\0\1\23\5\0\11\23"+
+    "\1\65\10\23\16\0\1\23\5\0\5\23\1\66\14\23"+
+    "\16\0\1\23\5\0\15\23\1\67\4\23\16\0\1\23"+
+    "\5\0\4\23\1\70\15\23\16\0\1\23\5\0\17\23"+
+    "\1\71\2\23\16\0\1\23\5\0\5\23\1\72\14\23"+
+    "\16\0\1\23\5\0\11\23\1\73\10\23\16\0\1\23"+
+    "\5\0\5\23\1\74\14\23\16\0\1\23\5\0\5\23"+
+    "\1\75\14\23\16\0\1\23\5\0\14\23\1\76\5\23"+
+    "\16\0\1\23\5\0\5\23\1\77\14\23\16\0\1\23"+
+    "\5\0\2\23\1\100\17\23\16\0\1\23\5\0\12\23"+
+    "\1\101\7\23\16\0\1\23\5\0\12\23\1\102\7\23"+
+    "\3\0";
 
   private static int [] zzUnpacktrans() {
-    int [] result = new int[1295];
+    int [] result = new int[1482];
     int offset = 0;
     offset = zzUnpacktrans(ZZ_TRANS_PACKED_0, offset, result);
     return result;
@@ -235,11 +238,11 @@ public class SimpleLexer implements java_cup.runtime.Scanner {
   private static final int [] ZZ_ATTRIBUTE = zzUnpackAttribute();
 
   private static final String ZZ_ATTRIBUTE_PACKED_0 =
-    "\1\0\1\11\1\1\7\11\2\1\4\11\11\1\3\11"+
-    "\41\1";
+    "\1\0\1\11\1\1\1\11\1\1\7\11\2\1\4\11"+
+    "\11\1\1\11\1\1\3\11\12\1\1\11\27\1";
 
   private static int [] zzUnpackAttribute() {
-    int [] result = new int[61];
+    int [] result = new int[66];
     int offset = 0;
     offset = zzUnpackAttribute(ZZ_ATTRIBUTE_PACKED_0, offset, result);
     return result;
@@ -743,142 +746,157 @@ public class SimpleLexer implements java_cup.runtime.Scanner {
             { throw new RuntimeException("Illegal character '" + yytext() + "' at line " + yyline + ", column " + yycolumn);
             }
           // fall through
-          case 29: break;
+          case 32: break;
           case 2:
             { /* Just skip */
             }
           // fall through
-          case 30: break;
+          case 33: break;
           case 3:
-            { return new Symbol(sym.LEFT_PAREN, yyline, yycolumn);
+            { return new Symbol(sym.NOT, yyline, yycolumn);
             }
           // fall through
-          case 31: break;
+          case 34: break;
           case 4:
-            { return new Symbol(sym.RIGHT_PAREN, yyline, yycolumn);
+            { return new Symbol(sym.LEFT_PAREN, yyline, yycolumn);
             }
           // fall through
-          case 32: break;
+          case 35: break;
           case 5:
-            { return new Symbol(sym.STAR, yyline, yycolumn);
+            { return new Symbol(sym.RIGHT_PAREN, yyline, yycolumn);
             }
           // fall through
-          case 33: break;
+          case 36: break;
           case 6:
-            { return new Symbol(sym.PLUS, yyline, yycolumn);
+            { return new Symbol(sym.STAR, yyline, yycolumn);
             }
           // fall through
-          case 34: break;
+          case 37: break;
           case 7:
-            { return new Symbol(sym.COMMA, yyline, yycolumn);
+            { return new Symbol(sym.PLUS, yyline, yycolumn);
             }
           // fall through
-          case 35: break;
+          case 38: break;
           case 8:
-            { return new Symbol(sym.MINUS, yyline, yycolumn);
+            { return new Symbol(sym.COMMA, yyline, yycolumn);
             }
           // fall through
-          case 36: break;
+          case 39: break;
           case 9:
-            { return new Symbol(sym.SLASH, yyline, yycolumn);
+            { return new Symbol(sym.MINUS, yyline, yycolumn);
             }
           // fall through
-          case 37: break;
+          case 40: break;
           case 10:
-            { return new Symbol(sym.INTEGER_LIT, yyline, yycolumn, Integer.parseInt(yytext()));
+            { return new Symbol(sym.SLASH, yyline, yycolumn);
             }
           // fall through
-          case 38: break;
+          case 41: break;
           case 11:
-            { return new Symbol(sym.SEMICOLON, yyline, yycolumn);
+            { return new Symbol(sym.INTEGER_LIT, yyline, yycolumn, Integer.parseInt(yytext()));
             }
           // fall through
-          case 39: break;
+          case 42: break;
           case 12:
-            { return new Symbol(sym.LT, yyline, yycolumn);
+            { return new Symbol(sym.SEMICOLON, yyline, yycolumn);
             }
           // fall through
-          case 40: break;
+          case 43: break;
           case 13:
-            { return new Symbol(sym.EQ, yyline, yycolumn);
+            { return new Symbol(sym.LT, yyline, yycolumn);
             }
           // fall through
-          case 41: break;
+          case 44: break;
           case 14:
-            { return new Symbol(sym.GT, yyline, yycolumn);
+            { return new Symbol(sym.EQ, yyline, yycolumn);
             }
           // fall through
-          case 42: break;
+          case 45: break;
           case 15:
-            { return new Symbol(sym.IDENTIFIER, yyline, yycolumn, yytext());
+            { return new Symbol(sym.GT, yyline, yycolumn);
             }
           // fall through
-          case 43: break;
+          case 46: break;
           case 16:
-            { return new Symbol(sym.LEFT_BRACE, yyline, yycolumn);
+            { return new Symbol(sym.IDENTIFIER, yyline, yycolumn, yytext());
             }
           // fall through
-          case 44: break;
+          case 47: break;
           case 17:
-            { return new Symbol(sym.RIGHT_BRACE, yyline, yycolumn);
+            { return new Symbol(sym.LEFT_BRACE, yyline, yycolumn);
             }
           // fall through
-          case 45: break;
+          case 48: break;
           case 18:
-            { return new Symbol(sym.ASSIGN, yyline, yycolumn);
+            { return new Symbol(sym.RIGHT_BRACE, yyline, yycolumn);
             }
           // fall through
-          case 46: break;
+          case 49: break;
           case 19:
-            { return new Symbol(sym.IF, yyline, yycolumn);
+            { return new Symbol(sym.AND, yyline, yycolumn);
             }
           // fall through
-          case 47: break;
+          case 50: break;
           case 20:
-            { return new Symbol(sym.INT, yyline, yycolumn);
+            { return new Symbol(sym.ASSIGN, yyline, yycolumn);
             }
           // fall through
-          case 48: break;
+          case 51: break;
           case 21:
-            { return new Symbol(sym.VAR, yyline, yycolumn);
+            { return new Symbol(sym.IF, yyline, yycolumn);
             }
           // fall through
-          case 49: break;
+          case 52: break;
           case 22:
-            { return new Symbol(sym.ELSE, yyline, yycolumn);
+            { return new Symbol(sym.OR, yyline, yycolumn);
             }
           // fall through
-          case 50: break;
+          case 53: break;
           case 23:
-            { return new Symbol(sym.FUNC, yyline, yycolumn);
+            { return new Symbol(sym.INT, yyline, yycolumn);
             }
           // fall through
-          case 51: break;
+          case 54: break;
           case 24:
-            { return new Symbol(sym.TRUE, yyline, yycolumn);
+            { return new Symbol(sym.VAR, yyline, yycolumn);
             }
           // fall through
-          case 52: break;
+          case 55: break;
           case 25:
-            { return new Symbol(sym.FALSE, yyline, yycolumn);
+            { return new Symbol(sym.ELSE, yyline, yycolumn);
             }
           // fall through
-          case 53: break;
+          case 56: break;
           case 26:
-            { return new Symbol(sym.WHILE, yyline, yycolumn);
+            { return new Symbol(sym.FUNC, yyline, yycolumn);
             }
           // fall through
-          case 54: break;
+          case 57: break;
           case 27:
-            { return new Symbol(sym.RETURN, yyline, yycolumn);
+            { return new Symbol(sym.TRUE, yyline, yycolumn);
             }
           // fall through
-          case 55: break;
+          case 58: break;
           case 28:
+            { return new Symbol(sym.FALSE, yyline, yycolumn);
+            }
+          // fall through
+          case 59: break;
+          case 29:
+            { return new Symbol(sym.WHILE, yyline, yycolumn);
+            }
+          // fall through
+          case 60: break;
+          case 30:
+            { return new Symbol(sym.RETURN, yyline, yycolumn);
+            }
+          // fall through
+          case 61: break;
+          case 31:
             { return new Symbol(sym.BOOLEAN, yyline, yycolumn);
             }
           // fall through
-          case 56: break;
+          case 62: break;
           default:
             zzScanError(ZZ_NO_MATCH);
         }
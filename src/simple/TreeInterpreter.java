@@ -0,0 +1,97 @@
+package simple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Execution engine over a self-specializing node tree (see ExecNode).
+// Runs on the same Frames and Closures as the Interpreter; function bodies
+// are built into nodes on their first call and kept on the Closure.
+// Where the TypeChecker resolved the operand types, nodes are built
+// specialized from the start; the rest specialize on first execution.
+public class TreeInterpreter {
+
+    public void evaluate(AstNode node, Frame env) {
+        if (node instanceof FuncDef) {
+            new DefineNode((FuncDef) node).execute(env);
+        } else if (node instanceof Stmt) {
+            // A root to rewrite into, as for expressions below
+            new BlockNode(new StmtNode[] { build((Stmt) node) }).execute(env);
+        } else if (node instanceof Expr) {
+            // A root to rewrite into, like every other expression node
+            EnvItem res = new ReturnNode(build((Expr) node)).execute(env);
+            System.out.println("val it = " + res);
+        }
+    }
+
+    // --- Node construction from the resolved AST ---
+
+    static StmtNode build(Stmt stmt) {
+        return build(stmt, null);
+    }
+
+    // 'function' is the Closure whose loop back-edges the tree counts, as the
+    // Interpreter does for its tiering, or null
+    static StmtNode build(Stmt stmt, Closure function) {
+        switch (stmt.kind) {
+            case StmtKind.VAR_DECL: {
+                VarDecl decl = (VarDecl) stmt;
+                return new DeclareNode(decl.slot, decl.type);
+            }
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                ExprNode value = build(assign.expr);
+                Type type = assign.expr.valueType();
+                if (type == Type.INTEGER) return new IntWriteNode(assign.depth, assign.slot, assign.id, value);
+                if (type == Type.BOOLEAN) return new BoolWriteNode(assign.depth, assign.slot, assign.id, value);
+                return new UninitializedWriteNode(assign.depth, assign.slot, assign.id, value);
+            }
+            case StmtKind.BLOCK: {
+                BlockStmt block = (BlockStmt) stmt;
+                List<StmtNode> body = new ArrayList<>();
+                for (VarDecl d : block.declarations) body.add(build(d, function));
+                for (Stmt s : block.statements) body.add(build(s, function));
+                return new BlockNode(body.toArray(new StmtNode[0]));
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                return new IfNode(build(ifStmt.conditional), build(ifStmt.t, function),
+                        ifStmt.e == null ? null : build(ifStmt.e, function));
+            }
+            case StmtKind.LOOP: {
+                LoopStmt loop = (LoopStmt) stmt;
+                return new WhileNode(build(loop.conditional), build(loop.body, function), function);
+            }
+            case StmtKind.RETURN: return new ReturnNode(build(((ReturnStmt) stmt).expr));
+            default: throw new UnsupportedOperationException("Unknown Stmt: " + stmt);
+        }
+    }
+
+    static ExprNode build(Expr expr) {
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL: return new IntLiteralNode(((IntLiteral) expr).value);
+            case ExprKind.BOOL_LITERAL: return new BoolLiteralNode(((BoolLiteral) expr).value);
+            case ExprKind.ID: {
+                IdExpr id = (IdExpr) expr;
+                return new ReadNode(id.depth, id.slot, id.name);
+            }
+            case ExprKind.BINARY: {
+                BinaryExpr bin = (BinaryExpr) expr;
+                ExprNode left = build(bin.left), right = build(bin.right);
+                ExprNode node = UninitializedBinaryNode.specialize(bin.op, bin.left.valueType(), left, right);
+                return node != null ? node : new UninitializedBinaryNode(bin.op, left, right);
+            }
+            case ExprKind.CALL: {
+                FuncCall call = (FuncCall) expr;
+                ExprNode[] args = new ExprNode[call.args.size()];
+                for (int i = 0; i < args.length; i++) args[i] = build(call.args.get(i));
+                return new CallNode(call.depth, call.slot, call.name, args);
+            }
+            case ExprKind.INLINED_CALL: {
+                InlinedCall inlined = (InlinedCall) expr;
+                FuncCall call = inlined.call;
+                return new InlinedCallNode(call.depth, call.slot, call.name, inlined.target, build(inlined.body), build(call));
+            }
+            default: throw new UnsupportedOperationException("Unknown Expr: " + expr);
+        }
+    }
+}
@@ -2,26 +2,113 @@ package simple;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+// One checker per session. Checkers share no mutable state: each has its
+// own TypeStore, environment and definitions, and the types they share
+// (TypeConst) are immutable, so sessions can be checked on separate
+// threads. A checker itself takes one unit at a time; check() and
+// checkProgram() may be called from any thread.
 public class TypeChecker {
     public final TypeEnvironment typeEnv; //Symbol table
-    private static final TypeConst INT_TYPE = new TypeConst(Type.INTEGER);
-    private static final TypeConst BOOL_TYPE = new TypeConst(Type.BOOLEAN);
+    private static final TypeConst INT_TYPE = TypeConst.INTEGER;
+    private static final TypeConst BOOL_TYPE = TypeConst.BOOLEAN;
+    private static final int BATCHES_PER_WORKER = 4; // checkProgram tasks per pool thread and level
+    private static final int MIN_BATCH = 64; // components per checkProgram task, at least
+    private static final int MAX_RETYPINGS = 8; // type changes of one function per redefinition, at most
     private TypeExpr currentFunctionReturnType;
+    private int currentLevel; // definitions being checked, nested; 0 at top level
+    private final List<Expr> typedExprs = new ArrayList<>(); // types to resolve when the unit is done
+    // Undo log of the unit check() is working on
+    private final List<TypeExpr> previousTypes = new ArrayList<>(); // per typedExprs entry
+    private final Map<String, TypeExpr> previousBindings = new HashMap<>(); // top-level; null if new
+    private final Map<FuncDef, FuncType> previousDefTypes = new HashMap<>(); // of functions checked again
+    private final List<FuncDef> rechecked = new ArrayList<>(); // by the last unit accepted
+    // Top-level functions by name, and for each name the functions whose
+    // body refers to it; kept across check() calls for redefinitions
+    private final Map<String, FuncDef> definitions = new HashMap<>();
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    private final TypeStore store = new TypeStore(); // variables this checker creates
+    // Bindings of type variables a child does not own (see checkLevel); null in the parent
+    private final Map<TypeVar, TypeExpr> foreign;
 
     public TypeChecker() {
         this.typeEnv = new TypeEnvironment();
+        this.foreign = null;
+    }
+
+    // A child that checks functions in parallel with others (see checkLevel)
+    private TypeChecker(TypeChecker parent) {
+        this.typeEnv = new TypeEnvironment(parent.typeEnv);
+        this.foreign = new HashMap<>();
     }
 
     // New Entry Point for REPL
-    public TypeExpr check(AstNode node) throws Exception {
+    // Also elaborates the unit: every Expr gets its type, resolved with find()
+    // once the whole unit is checked, so engines can pick int-only or
+    // bool-only operations. A type still unresolved then stays a TypeVar.
+    //
+    // A FuncDef's type is generalized (see generalize), so each use of the
+    // function instantiates its type variables afresh.
+    //
+    // A top-level FuncDef or VarDecl may redefine its name. Besides the new
+    // definition, only the functions that refer to the name are checked
+    // again, and the ones that refer to those whose types changed, and so
+    // on out: where a type stays the same, nothing that uses it can be
+    // affected, so the work does not grow with the session. A unit that
+    // fails leaves no trace, and a redefinition that fails keeps the old
+    // definition.
+    public synchronized TypeExpr check(AstNode node) throws Exception {
+        boolean accepted = false;
+        rechecked.clear();
+        store.startJournal();
+        try {
+            TypeExpr type = checkUnit(node);
+            for (Expr expr : typedExprs) expr.type = resolve(expr.type);
+            accepted = true;
+            return type;
+        } finally {
+            if (accepted) {
+                store.commit();
+            } else {
+                undo();
+                rechecked.clear();
+            }
+            typedExprs.clear();
+            previousTypes.clear();
+            previousBindings.clear();
+            previousDefTypes.clear();
+        }
+    }
+
+    // The earlier definitions the last unit check() accepted checked again
+    // (see recheckDependents), each once. Their Exprs have new types, which
+    // code built from them before, such as an Optimizer copy, does not
+    // have: the caller defines them again.
+    public synchronized List<AstNode> rechecked() {
+        return new ArrayList<>(rechecked);
+    }
+
+    private TypeExpr checkUnit(AstNode node) throws Exception {
         if (node instanceof FuncDef) {
             FuncDef f = (FuncDef) node;
-            registerFunctionSignature(f); // Add name to scope first
-            checkFuncDef(f);              // Then check body
+            checkComponent(List.of(f));
+            define(f.name, f.type);
+            recheckDependents(f.name, f);
+            remember(f);
             return typeEnv.lookup(f.name); // Return the function type
+        } else if (node instanceof VarDecl) {
+            VarDecl decl = (VarDecl) node;
+            define(decl.name, declaredType(decl));
+            recheckDependents(decl.name, null);
+            forget(decl.name);
+            return null;
         } else if (node instanceof Stmt) {
             checkStmt((Stmt) node);
             return null; // Statements don't return a type value to print
@@ -30,49 +117,245 @@ public class TypeChecker {
         }
         throw new Exception("Unknown AST Node for checking");
     }
-    /* 
-    public void typeCheckProgram(ProgramNode program) throws Exception {
-        this.typeEnv = new TypeEnvironment();
+    // Whole-program entry point, on the common fork-join pool
+    public void checkProgram(ProgramNode program) throws Exception {
+        checkProgram(program, ForkJoinPool.commonPool());
+    }
 
-        for (FuncDef funcDef : program.fns) {
-            registerFunctionSignature(funcDef);
+    // Every function is visible to every other and to main, as are the
+    // globals. Functions are checked a level of call-graph components at a
+    // time (see CallGraph), the components of a level in parallel on 'pool'.
+    // A component only refers to components of earlier levels, whose types
+    // are generalized and published by then.
+    public synchronized void checkProgram(ProgramNode program, ForkJoinPool pool) throws Exception {
+        try {
+            for (FuncDef funcDef : program.fns) {
+                typeEnv.declare(funcDef.name, signature(funcDef));
+            }
+            for (VarDecl decl : program.globals) {
+                checkStmt(decl);
+            }
+            for (List<List<FuncDef>> level : new CallGraph(program.fns).levels()) {
+                checkLevel(level, pool);
+            }
+            for (Stmt stmt : program.main) {
+                checkStmt(stmt);
+            }
+            for (Expr expr : typedExprs) expr.type = resolve(expr.type);
+        } finally {
+            typedExprs.clear();
+            previousTypes.clear();
         }
+    }
 
-        for (FuncDef funcDef : program.fns) {
-            checkFuncDef(funcDef);
+    // The components are split into batches, each checked by a child
+    // TypeChecker. A child binds the type variables it created itself; any
+    // other binding, such as of a callee's 'var' parameter or a 'var'
+    // global, goes in its own substitution. Those are merged here in
+    // batch order, so conflicting uses in two batches still fail to unify.
+    // A level too small to give every batch MIN_BATCH components is checked
+    // here: a child and its merge cost more than checking a few functions.
+    private void checkLevel(List<List<FuncDef>> components, ForkJoinPool pool) throws Exception {
+        int batches = pool.getParallelism() == 1 ? 1
+                : Math.min(components.size() / MIN_BATCH, pool.getParallelism() * BATCHES_PER_WORKER);
+        if (batches <= 1) {
+            for (List<FuncDef> component : components) checkComponent(component);
+            publish(components);
+            return;
+        }
+        List<TypeChecker> children = new ArrayList<>();
+        List<Callable<Exception>> tasks = new ArrayList<>(); // each returns its type error, if any
+        for (int i = 0; i < batches; i++) {
+            List<List<FuncDef>> batch = components.subList(i * components.size() / batches,
+                    (i + 1) * components.size() / batches);
+            TypeChecker child = new TypeChecker(this);
+            children.add(child);
+            tasks.add(() -> {
+                try {
+                    for (List<FuncDef> component : batch) child.checkComponent(component);
+                    return null;
+                } catch (Exception e) {
+                    return e;
+                }
+            });
+        }
+        List<Future<Exception>> results = pool.invokeAll(tasks);
+        for (int i = 0; i < batches; i++) {
+            Exception error = results.get(i).get();
+            if (error != null) throw error;
+            TypeChecker child = children.get(i);
+            for (Map.Entry<TypeVar, TypeExpr> binding : child.foreign.entrySet()) {
+                unify(binding.getKey(), binding.getValue());
+            }
+            typedExprs.addAll(child.typedExprs);
+            previousTypes.addAll(child.previousTypes);
+            child.foreign.clear(); // its variables still refer to it
+            child.typedExprs.clear();
+            child.previousTypes.clear();
         }
+        publish(components);
+    }
+
+    private void publish(List<List<FuncDef>> components) {
+        for (List<FuncDef> component : components) {
+            for (FuncDef funcDef : component) typeEnv.define(funcDef.name, funcDef.type);
+        }
+    }
 
-        this.currentFunctionReturnType = null; // No return statements allowed in main
-        for(VarDecl decl : program.globals){
-            checkStmt(decl);
+    // Checks functions that refer only to each other and to generalized
+    // definitions, one level in, then generalizes their types. Their names
+    // are bound to their signatures in a scope of their own: the caller
+    // binds them to the generalized types.
+    private void checkComponent(List<FuncDef> component) throws Exception {
+        currentLevel++;
+        typeEnv.enterScope();
+        try {
+            for (FuncDef funcDef : component) typeEnv.declare(funcDef.name, signature(funcDef));
+            for (FuncDef funcDef : component) checkFuncDef(funcDef);
+        } finally {
+            typeEnv.exitScope();
+            currentLevel--;
         }
-        for (Stmt stmt : program.main) {
-            checkStmt(stmt);
+        for (FuncDef funcDef : component) {
+            generalize(funcDef.type);
+            funcDef.type = (FuncType) resolve(funcDef.type);
         }
-        System.out.println(typeEnv.toString());
     }
-    */
 
-    private void registerFunctionSignature(FuncDef funcDef) throws Exception {
-        List<TypeExpr> paramTypes = new ArrayList<>();
+    private FuncType signature(FuncDef funcDef) {
+        List<TypeExpr> types = new ArrayList<>(funcDef.params.size() + 1);
+        types.add(newVar()); // the return type
         for (VarDecl param : funcDef.params) {
             if (param.type == null) { // Implicitly typed param: var x
-                paramTypes.add(new TypeVar());
+                types.add(newVar());
             } else { // Explicitly typed param: int x
-                paramTypes.add(typeFromAst(param.type));
+                types.add(TypeConst.of(param.type));
             }
         }
-        TypeVar returnType = new TypeVar();
-        FuncType funcType = new FuncType(returnType, paramTypes);
-        typeEnv.declare(funcDef.name, funcType);
+        return store.funcType(types);
     }
 
+    private TypeExpr declaredType(VarDecl decl) {
+        if (decl.type == null) { // var x;
+            return newVar();
+        } else { // int x;
+            return TypeConst.of(decl.type);
+        }
+    }
+
+    // Binds a top-level name, keeping its previous binding for undo()
+    private void define(String name, TypeExpr type) {
+        TypeExpr previous = typeEnv.define(name, type);
+        if (!previousBindings.containsKey(name)) previousBindings.put(name, previous);
+    }
+
+    // Checks the functions that refer to 'name' again, once it has its new
+    // binding. A function whose type comes out different is bound to it,
+    // and the functions that refer to it are checked again in turn; one
+    // whose type stays as it was ends the chain there. 'redefined' is the
+    // new definition when 'name' is a function: it may refer to one of
+    // them, and is then checked again like any other.
+    private void recheckDependents(String name, FuncDef redefined) throws Exception {
+        Set<String> redefinedRefs = redefined == null ? Set.of() : CallGraph.references(redefined.body);
+        Map<String, Integer> retypings = new HashMap<>();
+        Set<String> changed = new LinkedHashSet<>(); // names whose binding changed, in order
+        changed.add(name);
+        while (!changed.isEmpty()) {
+            String changedName = changed.iterator().next();
+            changed.remove(changedName);
+            for (String user : users(changedName, name, redefinedRefs)) {
+                FuncDef funcDef = user.equals(name) ? redefined : definitions.get(user);
+                FuncType type = funcDef.type;
+                if (previousDefTypes.putIfAbsent(funcDef, type) == null && funcDef != redefined) rechecked.add(funcDef);
+                try {
+                    checkComponent(List.of(funcDef));
+                } catch (Exception e) {
+                    throw new Exception(e.getMessage() + " (in '" + user + "', which uses '" + changedName + "')");
+                }
+                if (sameType(funcDef.type, type, new HashMap<>())) {
+                    funcDef.type = type;
+                    continue;
+                }
+                if (retypings.merge(user, 1, Integer::sum) > MAX_RETYPINGS) {
+                    throw new Exception("The type of '" + user + "' does not settle (it uses '" + changedName + "')");
+                }
+                define(user, funcDef.type);
+                changed.add(user);
+            }
+        }
+    }
+
+    // The functions that refer to 'changedName', with the redefinition of
+    // 'name', if any, in place of its old definition
+    private List<String> users(String changedName, String name, Set<String> redefinedRefs) {
+        List<String> users = new ArrayList<>();
+        Set<String> known = dependents.get(changedName);
+        if (known != null) {
+            for (String user : known) if (!user.equals(name)) users.add(user);
+        }
+        if (!changedName.equals(name) && redefinedRefs.contains(changedName)) users.add(name);
+        return users;
+    }
+
+    // Whether two generalized types are the same up to the names of their
+    // generic variables; other variables must be the very same
+    private boolean sameType(TypeExpr t1, TypeExpr t2, Map<TypeVar, TypeVar> renaming) {
+        TypeExpr rep1 = find(t1), rep2 = find(t2);
+        if (rep1 instanceof TypeVar && rep2 instanceof TypeVar) {
+            TypeVar var1 = (TypeVar) rep1, var2 = (TypeVar) rep2;
+            if (var1.level != TypeVar.GENERIC || var2.level != TypeVar.GENERIC) return var1 == var2;
+            TypeVar renamed = renaming.get(var1);
+            if (renamed != null) return renamed == var2;
+            if (renaming.containsValue(var2)) return false;
+            renaming.put(var1, var2);
+            return true;
+        }
+        if (rep1 instanceof FuncType && rep2 instanceof FuncType) {
+            FuncType f1 = (FuncType) rep1, f2 = (FuncType) rep2;
+            if (f1.paramTypes.size() != f2.paramTypes.size()) return false;
+            if (!sameType(f1.returnType, f2.returnType, renaming)) return false;
+            for (int i = 0; i < f1.paramTypes.size(); i++) {
+                if (!sameType(f1.paramTypes.get(i), f2.paramTypes.get(i), renaming)) return false;
+            }
+            return true;
+        }
+        return rep1 instanceof TypeConst && rep1.equals(rep2);
+    }
+
+    private void remember(FuncDef funcDef) {
+        forget(funcDef.name);
+        definitions.put(funcDef.name, funcDef);
+        for (String name : CallGraph.references(funcDef.body)) {
+            dependents.computeIfAbsent(name, n -> new LinkedHashSet<>()).add(funcDef.name);
+        }
+    }
+
+    // The name no longer refers to the function it was defined as, if any
+    private void forget(String name) {
+        FuncDef old = definitions.remove(name);
+        if (old == null) return;
+        for (String reference : CallGraph.references(old.body)) dependents.get(reference).remove(name);
+    }
+
+    // Takes back everything a failed unit did, newest first. Levels need no
+    // undoing: a variable that outlives the unit unbound is either at
+    // level 0 already or generalized, and bind() lowers neither.
+    private void undo() {
+        store.rollback();
+        for (int i = typedExprs.size() - 1; i >= 0; i--) typedExprs.get(i).type = previousTypes.get(i);
+        for (Map.Entry<String, TypeExpr> binding : previousBindings.entrySet()) {
+            typeEnv.undefine(binding.getKey(), binding.getValue());
+        }
+        for (Map.Entry<FuncDef, FuncType> def : previousDefTypes.entrySet()) def.getKey().type = def.getValue();
+    }
 
 
     private void checkFuncDef(FuncDef funcDef) throws Exception {
-        FuncType funcType = (FuncType) typeEnv.lookup(funcDef.name).find();
+        FuncType funcType = (FuncType) find(typeEnv.lookup(funcDef.name));
+        funcDef.type = funcType;
 
-        this.currentFunctionReturnType = funcType.returnType;
+        TypeExpr outerReturnType = currentFunctionReturnType;
+        currentFunctionReturnType = funcType.returnType;
 
         typeEnv.enterScope();
         try {
@@ -85,77 +368,93 @@ public class TypeChecker {
         } finally {
             //exit scope, no longer expecting return statements
             typeEnv.exitScope();
-            currentFunctionReturnType = null;
+            currentFunctionReturnType = outerReturnType;
         }
     }
 
     private void checkStmt(Stmt stmt) throws Exception {
-        if (stmt instanceof VarDecl) {
-            VarDecl decl = (VarDecl) stmt;
-            TypeExpr declaredType;
-            if (decl.type == null) { // var x;
-                declaredType = new TypeVar();
-            } else { // int x;
-                declaredType = typeFromAst(decl.type);
+        switch (stmt.kind) {
+            case StmtKind.VAR_DECL: {
+                VarDecl decl = (VarDecl) stmt;
+                typeEnv.declare(decl.name, declaredType(decl));
+                break;
+            }
+            case StmtKind.ASSIGN: {
+                AssignStmt assign = (AssignStmt) stmt;
+                TypeExpr varType = typeEnv.lookup(assign.id);
+                TypeExpr exprType = checkExpr(assign.expr);
+                unify(varType, exprType);
+                break;
             }
-            typeEnv.declare(decl.name, declaredType);
-        } else if (stmt instanceof AssignStmt) {
-            AssignStmt assign = (AssignStmt) stmt;
-            TypeExpr varType = typeEnv.lookup(assign.id);
-            TypeExpr exprType = checkExpr(assign.expr);
-            unify(varType, exprType);
-        } else if (stmt instanceof BlockStmt) {
-            BlockStmt block = (BlockStmt) stmt;
-            typeEnv.enterScope();
-            try {
-                for (VarDecl decl : block.declarations) {
-                    checkStmt(decl);
+            case StmtKind.BLOCK: {
+                BlockStmt block = (BlockStmt) stmt;
+                typeEnv.enterScope();
+                try {
+                    for (VarDecl decl : block.declarations) {
+                        checkStmt(decl);
+                    }
+                    for (Stmt s : block.statements) {
+                        checkStmt(s);
+                    }
+                } finally {
+                    typeEnv.exitScope();
                 }
-                for (Stmt s : block.statements) {
-                    checkStmt(s);
+                break;
+            }
+            case StmtKind.IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                TypeExpr conditionType = checkExpr(ifStmt.conditional);
+                unify(conditionType, BOOL_TYPE);
+                checkStmt(ifStmt.t);
+                if (ifStmt.e != null) {
+                    checkStmt(ifStmt.e);
                 }
-            } finally {
-                typeEnv.exitScope();
+                break;
             }
-        } else if (stmt instanceof IfStmt) {
-            IfStmt ifStmt = (IfStmt) stmt;
-            TypeExpr conditionType = checkExpr(ifStmt.conditional);
-            unify(conditionType, BOOL_TYPE);
-            checkStmt(ifStmt.t);
-            if (ifStmt.e != null) {
-                checkStmt(ifStmt.e);
+            case StmtKind.LOOP: {
+                LoopStmt loop = (LoopStmt) stmt;
+                TypeExpr conditionType = checkExpr(loop.conditional);
+                unify(conditionType, BOOL_TYPE);
+                checkStmt(loop.body);
+                break;
             }
-        } else if (stmt instanceof LoopStmt) {
-            LoopStmt loop = (LoopStmt) stmt;
-            TypeExpr conditionType = checkExpr(loop.conditional);
-            unify(conditionType, BOOL_TYPE);
-            checkStmt(loop.body);
-        } else if (stmt instanceof ReturnStmt) {
-            ReturnStmt ret = (ReturnStmt) stmt;
-            if (currentFunctionReturnType == null) {
-                throw new Exception("Return statement found outside of a function body.");
+            case StmtKind.RETURN: {
+                ReturnStmt ret = (ReturnStmt) stmt;
+                if (currentFunctionReturnType == null) {
+                    throw new Exception("Return statement found outside of a function body.");
+                }
+                TypeExpr returnExprType = checkExpr(ret.expr);
+                unify(returnExprType, currentFunctionReturnType);
+                break;
             }
-            TypeExpr returnExprType = checkExpr(ret.expr);
-            unify(returnExprType, currentFunctionReturnType);
         }
     }
 
     private TypeExpr checkExpr(Expr expr) throws Exception {
         TypeExpr resultType;
-        if (expr instanceof IntLiteral) {
-            resultType = INT_TYPE;
-        } else if (expr instanceof BoolLiteral) {
-            resultType = BOOL_TYPE;
-        } else if (expr instanceof IdExpr) {
-            resultType = typeEnv.lookup(((IdExpr) expr).name);
-        } else if (expr instanceof BinaryExpr) {
-            resultType = checkBinaryExpr((BinaryExpr) expr);
-        } else if (expr instanceof FuncCall) {
-            resultType = checkFuncCall((FuncCall) expr);
-        } else {
-            throw new Exception("Unhandled expression type in type checker.");
+        switch (expr.kind) {
+            case ExprKind.INT_LITERAL:
+                resultType = INT_TYPE;
+                break;
+            case ExprKind.BOOL_LITERAL:
+                resultType = BOOL_TYPE;
+                break;
+            case ExprKind.ID:
+                resultType = instantiate(typeEnv.lookup(((IdExpr) expr).name));
+                break;
+            case ExprKind.BINARY:
+                resultType = checkBinaryExpr((BinaryExpr) expr);
+                break;
+            case ExprKind.CALL:
+                resultType = checkFuncCall((FuncCall) expr);
+                break;
+            default:
+                throw new Exception("Unhandled expression type in type checker.");
         }
 
+        previousTypes.add(expr.type);
+        expr.type = resultType;
+        typedExprs.add(expr);
         return resultType;
     }
 
@@ -190,45 +489,49 @@ public class TypeChecker {
 
     private TypeExpr checkFuncCall(FuncCall call) throws Exception {
         TypeExpr funcTypeRaw = typeEnv.lookup(call.name);
-        TypeExpr funcTypeRep = funcTypeRaw.find();
+        TypeExpr funcTypeRep = find(funcTypeRaw);
 
         if (funcTypeRep instanceof TypeVar) {
-            List<TypeExpr> argTypes = new ArrayList<>();
+            List<TypeExpr> types = new ArrayList<>(call.args.size() + 1);
+            TypeVar returnType = newVar();
+            types.add(returnType);
             for (Expr arg : call.args) {
-                argTypes.add(checkExpr(arg));
+                types.add(find(checkExpr(arg)));
             }
-            TypeVar returnType = new TypeVar();
-            FuncType inferredType = new FuncType(returnType, argTypes);
-            unify(funcTypeRaw, inferredType);
+            unify(funcTypeRaw, store.funcType(types));
             return returnType;
         } else if (funcTypeRep instanceof FuncType) {
             FuncType funcType = (FuncType) funcTypeRep;
             if (call.args.size() != funcType.paramTypes.size()) {
                 throw new Exception("Function arity mismatch: " + call.name);
             }
+            // Instantiated a part at a time, so the call builds no FuncType;
+            // a ground one has nothing to instantiate
+            Map<TypeVar, TypeVar> fresh = funcType.ground ? null : new HashMap<>();
             for (int i = 0; i < call.args.size(); i++) {
                 TypeExpr argType = checkExpr(call.args.get(i));
-                TypeExpr paramType = funcType.paramTypes.get(i);
+                TypeExpr paramType = instantiate(funcType.paramTypes.get(i), fresh);
                 unify(argType, paramType);
             }
-            return funcType.returnType;
+            return instantiate(funcType.returnType, fresh);
         } else {
             throw new Exception("'" + call.name + "' is not a function.");
         }
     }
 
     void unify(TypeExpr t1, TypeExpr t2) throws Exception{
-        TypeExpr rep1 = t1.find(), rep2 = t2.find();
+        if (t1 == t2) return; // interned types are often the very same
+        TypeExpr rep1 = find(t1), rep2 = find(t2);
         if(rep1 == rep2){
             //same type
             return;
         }
         if(rep1 instanceof TypeVar){
-            ((TypeVar)rep1).instance = rep2;
+            bind((TypeVar)rep1, rep2);
             return;
         }
         if(rep2 instanceof TypeVar){
-            ((TypeVar)rep2).instance = rep1;
+            bind((TypeVar)rep2, rep1);
             return;
         }
         if(rep1 instanceof TypeConst && rep2 instanceof TypeConst){
@@ -258,9 +561,131 @@ public class TypeChecker {
 
     }
 
-    private TypeConst typeFromAst(Type astType){
-        if(astType == Type.BOOLEAN)return BOOL_TYPE;
-        if(astType == Type.INTEGER)return INT_TYPE;
-        throw new IllegalArgumentException("Invalid Ast Type");
+    // TypeVar.find(), also through a child's bindings of variables it does
+    // not own. Only this checker's own store gets its paths compressed:
+    // another's may be read by other children at the same time.
+    private TypeExpr find(TypeExpr t) {
+        TypeExpr rep = t;
+        while (rep instanceof TypeVar) {
+            TypeVar var = (TypeVar) rep;
+            TypeVar root = var.store == store ? store.root(var) : var.store.peekRoot(var);
+            TypeExpr bound = root.store.bound(root);
+            if (bound == null && foreign != null) bound = foreign.get(root);
+            if (bound == null) return root;
+            rep = bound;
+        }
+        return rep;
+    }
+
+    // var and type are representatives; two variables of a store are
+    // united in it, anything else is bound to the class
+    private void bind(TypeVar var, TypeExpr type) throws Exception {
+        if (var.level == TypeVar.GENERIC) {
+            throw new Exception("Type Mismatch: " + var + " " + type);
+        }
+        adjust(type, var);
+        if (foreign != null && var.store != store) {
+            foreign.put(var, type);
+        } else if (type instanceof TypeVar && ((TypeVar) type).store == var.store) {
+            var.store.union(var, (TypeVar) type);
+        } else {
+            var.store.bind(var, type);
+        }
+    }
+
+    // Occurs check for binding var to type, which also lowers the level of
+    // every variable in type to var's: once bound, they are visible
+    // wherever var is. A variable then has a level above the current one
+    // only if nothing outside the definitions being checked can reach it,
+    // so generalizing a definition looks at its own type and no further.
+    // A child only ever lowers its own variables: the others it can reach
+    // are at level 0, or generic and left alone.
+    private void adjust(TypeExpr type, TypeVar var) throws Exception {
+        if (TypeStore.isGround(type)) return;
+        TypeExpr rep = find(type);
+        if (rep == var) throw new Exception("Recursive type: " + var + " occurs in itself");
+        if (rep instanceof TypeVar) {
+            TypeVar other = (TypeVar) rep;
+            if (other.level > var.level && other.level != TypeVar.GENERIC) other.level = var.level;
+        } else if (rep instanceof FuncType) {
+            FuncType funcType = (FuncType) rep;
+            adjust(funcType.returnType, var);
+            for (TypeExpr paramType : funcType.paramTypes) adjust(paramType, var);
+        }
+    }
+
+    // Marks the variables of a type just checked one level in, and not
+    // reachable from outside it, as generic (Remy's levels)
+    private void generalize(TypeExpr type) {
+        if (TypeStore.isGround(type)) return;
+        TypeExpr rep = find(type);
+        if (rep instanceof TypeVar) {
+            TypeVar var = (TypeVar) rep;
+            if (var.level > currentLevel) var.level = TypeVar.GENERIC;
+        } else if (rep instanceof FuncType) {
+            FuncType funcType = (FuncType) rep;
+            generalize(funcType.returnType);
+            for (TypeExpr paramType : funcType.paramTypes) generalize(paramType);
+        }
+    }
+
+    // The type with fresh variables for its generic ones; shared parts that
+    // have none are not copied, and a type without any is returned as it is
+    private TypeExpr instantiate(TypeExpr type) {
+        if (TypeStore.isGround(type) || !(find(type) instanceof FuncType)) return type; // only functions are generalized
+        return instantiate(type, new HashMap<>());
+    }
+
+    // The same, with the fresh variables so far; none if 'fresh' is null
+    private TypeExpr instantiate(TypeExpr type, Map<TypeVar, TypeVar> fresh) {
+        if (fresh == null) return type;
+        TypeExpr copy = copy(type, fresh);
+        return copy != null ? copy : type;
+    }
+
+    // null if the type has no generic variables
+    private TypeExpr copy(TypeExpr type, Map<TypeVar, TypeVar> fresh) {
+        if (TypeStore.isGround(type)) return null;
+        TypeExpr rep = find(type);
+        if (rep instanceof TypeVar) {
+            TypeVar var = (TypeVar) rep;
+            return var.level == TypeVar.GENERIC ? fresh.computeIfAbsent(var, v -> newVar()) : null;
+        }
+        if (!(rep instanceof FuncType)) return null;
+        FuncType funcType = (FuncType) rep;
+        List<TypeExpr> types = null; // return type, then parameter types
+        int count = funcType.paramTypes.size() + 1;
+        for (int i = 0; i < count; i++) {
+            TypeExpr part = i == 0 ? funcType.returnType : funcType.paramTypes.get(i - 1);
+            TypeExpr copy = copy(part, fresh);
+            if (copy == null) continue;
+            if (types == null) {
+                types = new ArrayList<>(count);
+                types.add(funcType.returnType);
+                types.addAll(funcType.paramTypes);
+            }
+            types.set(i, copy);
+        }
+        return types == null ? null : store.funcType(types);
+    }
+
+    // The representative, and for a FuncType whose parts all resolve to
+    // types without variables, the interned one: elaborated Exprs and
+    // generalized functions then share one object per distinct type
+    private TypeExpr resolve(TypeExpr type) {
+        TypeExpr rep = find(type);
+        if (!(rep instanceof FuncType) || TypeStore.isGround(rep)) return rep;
+        FuncType funcType = (FuncType) rep;
+        List<TypeExpr> types = new ArrayList<>(funcType.paramTypes.size() + 1);
+        types.add(resolve(funcType.returnType));
+        for (TypeExpr paramType : funcType.paramTypes) types.add(resolve(paramType));
+        for (TypeExpr part : types) {
+            if (!TypeStore.isGround(part)) return rep;
+        }
+        return store.funcType(types);
+    }
+
+    private TypeVar newVar() {
+        return store.newVar(currentLevel);
     }
 }
@@ -14,6 +14,14 @@ public class TypeEnvironment {
         this.scopeStack = new LinkedList<>();
         enterScope();
     }
+
+    // Shares the outermost scope of 'globals', which must not change while
+    // this environment is in use, and declares into scopes of its own
+    TypeEnvironment(TypeEnvironment globals){
+        this.scopeStack = new LinkedList<>();
+        scopeStack.push(globals.scopeStack.getLast());
+        enterScope();
+    }
     
     public void enterScope(){
         scopeStack.push(new HashMap<>());
@@ -49,6 +57,16 @@ public class TypeEnvironment {
         }
         scopeStack.peek().put(name, value);
     }
+    // Binds name in the outermost scope, replacing any earlier binding, and
+    // returns that binding (null if there was none)
+    TypeExpr define(String name, TypeExpr value){
+        return scopeStack.getLast().put(name, value);
+    }
+    // Undoes define(): restores 'previous', or drops the name if it is null
+    void undefine(String name, TypeExpr previous){
+        if (previous == null) scopeStack.getLast().remove(name);
+        else scopeStack.getLast().put(name, previous);
+    }
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
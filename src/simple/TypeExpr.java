@@ -8,12 +8,21 @@ public abstract class TypeExpr{
     public TypeExpr find(){return this;}
 }
 class TypeConst extends TypeExpr{
+    static final TypeConst INTEGER = new TypeConst(Type.INTEGER);
+    static final TypeConst BOOLEAN = new TypeConst(Type.BOOLEAN);
     final Type type;
     
-    public TypeConst(Type type) {
+    private TypeConst(Type type) {
         this.type = type;
     }
 
+    // The one TypeConst of each type
+    static TypeConst of(Type type) {
+        if (type == Type.INTEGER) return INTEGER;
+        if (type == Type.BOOLEAN) return BOOLEAN;
+        throw new IllegalArgumentException("Invalid Ast Type");
+    }
+
     @Override
     public String toString() {
         return type.toString();
@@ -30,35 +39,48 @@ class TypeConst extends TypeExpr{
     public int hashCode() { return Objects.hash(type); }
     
 }
+// Created by a TypeStore, which holds what it is bound to
 class TypeVar extends TypeExpr{
-    private static int nextId = 0;
-    final int id;
-    TypeExpr instance = null;
-    public TypeVar(){
-        this.id = nextId++;
+    static final int GENERIC = Integer.MAX_VALUE; // level of a generalized variable
+    final TypeStore store;
+    final int id; // dense, in its store
+    int level; // definitions it is visible outside of (see TypeChecker.generalize)
+    TypeVar(TypeStore store, int id, int level){
+        this.store = store;
+        this.id = id;
+        this.level = level;
     }
+    // Iterative, also through variables of other stores. Only reads: the
+    // engines call it, possibly while the store's checker is at work
     @Override
     public TypeExpr find() {
-        if (instance != null) {
-            TypeExpr root = instance.find();
-            instance = root;
-            return root;
+        TypeExpr t = this;
+        while (t instanceof TypeVar) {
+            TypeVar root = ((TypeVar) t).store.peekRoot((TypeVar) t);
+            TypeExpr bound = root.store.bound(root);
+            if (bound == null) return root;
+            t = bound;
         }
-        return this; // This TypeVar is its own leader for now.
+        return t;
     }
+    // Leaves the paths alone, as find() does
     @Override
     public String toString() {
-        if(instance != null)
-            return instance.toString();
-        return "t: " + String.valueOf(id);
+        TypeVar root = store.peekRoot(this);
+        TypeExpr bound = store.bound(root);
+        if (bound != null) return bound.toString();
+        return "t: " + String.valueOf(root.id);
     }
 }
+// Created by a TypeStore, which interns the ground ones
 class FuncType extends TypeExpr{
     final TypeExpr returnType;
     final List<TypeExpr> paramTypes;
-    public FuncType(TypeExpr returnType, List<TypeExpr> paramTypes) {
+    final boolean ground; // no variables: interned
+    FuncType(TypeExpr returnType, List<TypeExpr> paramTypes, boolean ground) {
         this.returnType = returnType;
         this.paramTypes = paramTypes;
+        this.ground = ground;
     }
     @Override
     public String toString() {
@@ -0,0 +1,170 @@
+package simple;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The type variables of one TypeChecker, by dense id, as a union-find with
+// union by rank and path compression. A class of variables is either
+// unbound, with its root as representative, or bound to a type that is not
+// a variable of this store: a TypeConst, a FuncType, or a variable of
+// another checker's store (see TypeChecker.checkLevel).
+//
+// While journaling, every write is logged so that rollback() can take a
+// failed REPL unit back, the writes of path compression included: undone
+// newest first, they put back every link they skipped.
+//
+// Also interns FuncTypes over types without variables, so a type such as
+// (INTEGER) -> INTEGER exists once however often it is written, and unify
+// can tell two of them equal by pointer.
+final class TypeStore {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private TypeVar[] vars = new TypeVar[INITIAL_CAPACITY];
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private byte[] rank = new byte[INITIAL_CAPACITY];
+    private TypeExpr[] bound = new TypeExpr[INITIAL_CAPACITY]; // per root
+    private int size;
+    private final Map<List<TypeExpr>, FuncType> funcTypes = new HashMap<>(); // [return, params...]
+
+    // Journal of writes: the id written and its previous state
+    private boolean journaling;
+    private int journalStart; // size when the journal started
+    private int[] journalIds = new int[INITIAL_CAPACITY];
+    private int[] journalParents = new int[INITIAL_CAPACITY];
+    private byte[] journalRanks = new byte[INITIAL_CAPACITY];
+    private TypeExpr[] journalBound = new TypeExpr[INITIAL_CAPACITY];
+    private int journalSize;
+
+    TypeVar newVar(int level) {
+        if (size == vars.length) {
+            int capacity = size * 2;
+            vars = Arrays.copyOf(vars, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            rank = Arrays.copyOf(rank, capacity);
+            bound = Arrays.copyOf(bound, capacity);
+        }
+        TypeVar var = new TypeVar(this, size, level);
+        vars[size] = var;
+        parent[size] = size;
+        size++;
+        return var;
+    }
+
+    // The root variable of var's class; var must be of this store
+    TypeVar root(TypeVar var) {
+        int root = var.id;
+        while (parent[root] != root) root = parent[root];
+        int id = var.id;
+        while (parent[id] != root) {
+            int next = parent[id];
+            log(id);
+            parent[id] = root;
+            id = next;
+        }
+        return vars[root];
+    }
+
+    // Without path compression: for anything but the store's own checker
+    TypeVar peekRoot(TypeVar var) {
+        int root = var.id;
+        while (parent[root] != root) root = parent[root];
+        return vars[root];
+    }
+
+    // What the class of 'root' is bound to, or null
+    TypeExpr bound(TypeVar root) {
+        return bound[root.id];
+    }
+
+    void bind(TypeVar root, TypeExpr type) {
+        log(root.id);
+        bound[root.id] = type;
+    }
+
+    // Merges the classes of two unbound roots; the new root keeps the
+    // lower level
+    void union(TypeVar a, TypeVar b) {
+        int level = Math.min(a.level, b.level);
+        if (rank[a.id] > rank[b.id]) {
+            TypeVar t = a;
+            a = b;
+            b = t;
+        }
+        log(a.id);
+        parent[a.id] = b.id;
+        if (rank[a.id] == rank[b.id]) {
+            log(b.id);
+            rank[b.id]++;
+        }
+        b.level = level;
+    }
+
+    // The FuncType of 'types', the return type followed by the parameter
+    // types, which it keeps: the interned one if none of them is a variable,
+    // else a new one. Representatives intern best.
+    FuncType funcType(List<TypeExpr> types) {
+        for (TypeExpr type : types) {
+            if (!isGround(type)) return new FuncType(types.get(0), types.subList(1, types.size()), false);
+        }
+        FuncType funcType = funcTypes.get(types);
+        if (funcType == null) {
+            funcType = new FuncType(types.get(0), types.subList(1, types.size()), true);
+            funcTypes.put(types, funcType);
+        }
+        return funcType;
+    }
+
+    static boolean isGround(TypeExpr type) {
+        return type instanceof TypeConst || type instanceof FuncType && ((FuncType) type).ground;
+    }
+
+    void startJournal() {
+        journaling = true;
+        journalSize = 0;
+        journalStart = size;
+    }
+
+    // Keeps every write since startJournal()
+    void commit() {
+        journaling = false;
+        Arrays.fill(journalBound, 0, journalSize, null);
+        journalSize = 0;
+    }
+
+    // Undoes every write since startJournal(), newest first, and drops the
+    // variables created since, which nothing kept refers to. Levels are not
+    // restored: see TypeChecker.undo().
+    void rollback() {
+        for (int i = journalSize - 1; i >= 0; i--) {
+            int id = journalIds[i];
+            parent[id] = journalParents[i];
+            rank[id] = journalRanks[i];
+            bound[id] = journalBound[i];
+        }
+        Arrays.fill(vars, journalStart, size, null);
+        Arrays.fill(bound, journalStart, size, null);
+        Arrays.fill(rank, journalStart, size, (byte) 0);
+        size = journalStart;
+        commit();
+    }
+
+    // Variables created since startJournal() need no entry: rollback()
+    // drops them
+    private void log(int id) {
+        if (!journaling || id >= journalStart) return;
+        if (journalSize == journalIds.length) {
+            int capacity = journalSize * 2;
+            journalIds = Arrays.copyOf(journalIds, capacity);
+            journalParents = Arrays.copyOf(journalParents, capacity);
+            journalRanks = Arrays.copyOf(journalRanks, capacity);
+            journalBound = Arrays.copyOf(journalBound, capacity);
+        }
+        journalIds[journalSize] = id;
+        journalParents[journalSize] = parent[id];
+        journalRanks[journalSize] = rank[id];
+        journalBound[journalSize] = bound[id];
+        journalSize++;
+    }
+}
@@ -0,0 +1,250 @@
+package simple;
+
+import java.util.Arrays;
+
+// Unit of compiled code: a function body, or the top-level code of a REPL unit.
+class Proto {
+    final String name;
+    final int arity;
+    final int frameSize; // params + block locals
+    final int maxStack;  // operand stack needed on top of the frame
+    final int[] code;
+    final Object[] consts;
+    final FuncDef def;   // compiled from, for the guards of inlined calls; null for top-level code
+
+    Proto(String name, int arity, int frameSize, int maxStack, int[] code, Object[] consts, FuncDef def) {
+        this.name = name;
+        this.arity = arity;
+        this.frameSize = frameSize;
+        this.maxStack = maxStack;
+        this.code = code;
+        this.consts = consts;
+        this.def = def;
+    }
+}
+
+// Free variables are globals and are read in place, so a closure is just its code.
+class VmClosure {
+    final Proto proto;
+    VmClosure(Proto proto) {
+        this.proto = proto;
+    }
+}
+
+// Stack VM executing the output of BytecodeCompiler.
+// Every value is an int: booleans are 0/1 and functions are indices into
+// 'closures'. Simple calls push frames on heap arrays, not on the Java stack,
+// so recursion is bounded by maxDepth and the heap, never by the thread's stack.
+public class VM {
+    static final int DEFAULT_MAX_DEPTH = 1_000_000;
+
+    private int[] globals = new int[16];
+    private boolean[] defined = new boolean[16];
+    private VmClosure[] closures = new VmClosure[16];
+    private int closureCount = 0;
+
+    private int[] stack = new int[1024];
+
+    // Call frames of the running program, as parallel arrays
+    private Proto[] frameProto = new Proto[64];
+    private int[] framePc = new int[64];
+    private int[] frameFp = new int[64];
+    private int maxDepth = DEFAULT_MAX_DEPTH; // nested Simple calls
+
+    private final BytecodeCompiler compiler = new BytecodeCompiler(this);
+
+    public void evaluate(AstNode node, TypeExpr type) {
+        Proto top = compiler.compile(node);
+        int result = run(top);
+        if (node instanceof Expr) {
+            System.out.println("val it = " + format(result, type));
+        }
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 1) throw new IllegalArgumentException("max depth must be positive: " + maxDepth);
+        this.maxDepth = maxDepth;
+    }
+
+    private String format(int value, TypeExpr type) {
+        TypeExpr t = type == null ? null : type.find();
+        if (t instanceof FuncType) return "function: " + closures[value].proto.name;
+        if (t instanceof TypeConst && ((TypeConst) t).type == Type.BOOLEAN) return String.valueOf(value != 0);
+        if (t instanceof TypeVar) return "Uninitialized"; // never assigned a value
+        return String.valueOf(value);
+    }
+
+    void ensureGlobals(int size) {
+        if (size > globals.length) {
+            int n = Math.max(size, globals.length * 2);
+            globals = Arrays.copyOf(globals, n);
+            defined = Arrays.copyOf(defined, n);
+        }
+    }
+
+    boolean isDefined(int slot) {
+        return slot < defined.length && defined[slot];
+    }
+
+    private int newClosure(VmClosure closure) {
+        if (closureCount == closures.length) closures = Arrays.copyOf(closures, closureCount * 2);
+        closures[closureCount] = closure;
+        return closureCount++;
+    }
+
+    private int[] ensureStack(int[] stack, int size) {
+        if (size > stack.length) {
+            stack = Arrays.copyOf(stack, Math.max(size, stack.length * 2));
+            this.stack = stack;
+        }
+        return stack;
+    }
+
+    private void growFrames() {
+        int n = frameProto.length * 2;
+        frameProto = Arrays.copyOf(frameProto, n);
+        framePc = Arrays.copyOf(framePc, n);
+        frameFp = Arrays.copyOf(frameFp, n);
+    }
+
+    private int run(Proto top) {
+        int[] stack = this.stack;
+        int[] globals = this.globals;
+        int depth = 0;
+
+        Proto proto = top;
+        int[] code = proto.code;
+        int[] locals = globals; // globals in top-level code, the stack inside a function
+        int base = 0;           // index of local slot 0 in 'locals'
+        int pc = 0;
+        int fp = 0;
+        int sp = 0;
+        stack = ensureStack(stack, sp + proto.maxStack);
+
+        while (true) {
+            switch (code[pc++]) {
+                case Opcode.PUSH: stack[sp++] = code[pc++]; break;
+                case Opcode.LOAD: stack[sp++] = locals[base + code[pc++]]; break;
+                case Opcode.STORE: locals[base + code[pc++]] = stack[--sp]; break;
+                case Opcode.LOAD_GLOBAL: stack[sp++] = globals[code[pc++]]; break;
+                case Opcode.STORE_GLOBAL: globals[code[pc++]] = stack[--sp]; break;
+                case Opcode.DEFINE: {
+                    int slot = code[pc++];
+                    ensureGlobals(slot + 1);
+                    locals = globals = this.globals; // only emitted in top-level code
+                    globals[slot] = stack[--sp];
+                    defined[slot] = true;
+                    break;
+                }
+
+                case Opcode.ADD: sp--; stack[sp - 1] += stack[sp]; break;
+                case Opcode.SUB: sp--; stack[sp - 1] -= stack[sp]; break;
+                case Opcode.MUL: sp--; stack[sp - 1] *= stack[sp]; break;
+                case Opcode.DIV: sp--; stack[sp - 1] /= stack[sp]; break;
+                case Opcode.LT: sp--; stack[sp - 1] = stack[sp - 1] < stack[sp] ? 1 : 0; break;
+                case Opcode.GT: sp--; stack[sp - 1] = stack[sp - 1] > stack[sp] ? 1 : 0; break;
+                case Opcode.EQ: sp--; stack[sp - 1] = stack[sp - 1] == stack[sp] ? 1 : 0; break;
+                case Opcode.AND: sp--; stack[sp - 1] &= stack[sp]; break;
+                case Opcode.OR: sp--; stack[sp - 1] |= stack[sp]; break;
+
+                case Opcode.ADD_L: stack[sp - 1] += locals[base + code[pc++]]; break;
+                case Opcode.SUB_L: stack[sp - 1] -= locals[base + code[pc++]]; break;
+                case Opcode.MUL_L: stack[sp - 1] *= locals[base + code[pc++]]; break;
+                case Opcode.LT_L: stack[sp - 1] = stack[sp - 1] < locals[base + code[pc++]] ? 1 : 0; break;
+                case Opcode.GT_L: stack[sp - 1] = stack[sp - 1] > locals[base + code[pc++]] ? 1 : 0; break;
+                case Opcode.EQ_L: stack[sp - 1] = stack[sp - 1] == locals[base + code[pc++]] ? 1 : 0; break;
+                case Opcode.ADD_I: stack[sp - 1] += code[pc++]; break;
+                case Opcode.SUB_I: stack[sp - 1] -= code[pc++]; break;
+                case Opcode.MUL_I: stack[sp - 1] *= code[pc++]; break;
+                case Opcode.LT_I: stack[sp - 1] = stack[sp - 1] < code[pc++] ? 1 : 0; break;
+                case Opcode.GT_I: stack[sp - 1] = stack[sp - 1] > code[pc++] ? 1 : 0; break;
+                case Opcode.EQ_I: stack[sp - 1] = stack[sp - 1] == code[pc++] ? 1 : 0; break;
+                case Opcode.INC: locals[base + code[pc]] += code[pc + 1]; pc += 2; break;
+                case Opcode.INC_GLOBAL: globals[code[pc]] += code[pc + 1]; pc += 2; break;
+                case Opcode.ADD_LL: locals[base + code[pc]] = locals[base + code[pc + 1]] + locals[base + code[pc + 2]]; pc += 3; break;
+                case Opcode.SUB_LL: locals[base + code[pc]] = locals[base + code[pc + 1]] - locals[base + code[pc + 2]]; pc += 3; break;
+                case Opcode.MUL_LL: locals[base + code[pc]] = locals[base + code[pc + 1]] * locals[base + code[pc + 2]]; pc += 3; break;
+
+                case Opcode.JUMP: pc = code[pc]; break;
+                case Opcode.JUMP_IF_FALSE:
+                    if (stack[--sp] == 0) pc = code[pc];
+                    else pc++;
+                    break;
+                case Opcode.JUMP_IF_TRUE:
+                    if (stack[--sp] != 0) pc = code[pc];
+                    else pc++;
+                    break;
+                case Opcode.IF_LT_I: pc = locals[base + code[pc]] < code[pc + 1] ? code[pc + 2] : pc + 3; break;
+                case Opcode.IF_GT_I: pc = locals[base + code[pc]] > code[pc + 1] ? code[pc + 2] : pc + 3; break;
+                case Opcode.IF_EQ_I: pc = locals[base + code[pc]] == code[pc + 1] ? code[pc + 2] : pc + 3; break;
+                case Opcode.IF_LT_L: pc = locals[base + code[pc]] < locals[base + code[pc + 1]] ? code[pc + 2] : pc + 3; break;
+                case Opcode.IF_GT_L: pc = locals[base + code[pc]] > locals[base + code[pc + 1]] ? code[pc + 2] : pc + 3; break;
+                case Opcode.IF_EQ_L: pc = locals[base + code[pc]] == locals[base + code[pc + 1]] ? code[pc + 2] : pc + 3; break;
+                case Opcode.UNLESS_LT_I: pc = locals[base + code[pc]] < code[pc + 1] ? pc + 3 : code[pc + 2]; break;
+                case Opcode.UNLESS_GT_I: pc = locals[base + code[pc]] > code[pc + 1] ? pc + 3 : code[pc + 2]; break;
+                case Opcode.UNLESS_EQ_I: pc = locals[base + code[pc]] == code[pc + 1] ? pc + 3 : code[pc + 2]; break;
+                case Opcode.UNLESS_LT_L: pc = locals[base + code[pc]] < locals[base + code[pc + 1]] ? pc + 3 : code[pc + 2]; break;
+                case Opcode.UNLESS_GT_L: pc = locals[base + code[pc]] > locals[base + code[pc + 1]] ? pc + 3 : code[pc + 2]; break;
+                case Opcode.UNLESS_EQ_L: pc = locals[base + code[pc]] == locals[base + code[pc + 1]] ? pc + 3 : code[pc + 2]; break;
+
+                case Opcode.CLOSURE: {
+                    Proto fn = (Proto) proto.consts[code[pc++]];
+                    stack[sp++] = newClosure(new VmClosure(fn));
+                    break;
+                }
+                case Opcode.GUARD_CALLEE:
+                    pc = closures[globals[code[pc]]].proto.def == proto.consts[code[pc + 1]] ? pc + 3 : code[pc + 2];
+                    break;
+                case Opcode.CALL:
+                case Opcode.CALL_GLOBAL: {
+                    VmClosure callee;
+                    int argc;
+                    if (code[pc - 1] == Opcode.CALL) {
+                        argc = code[pc++];
+                        callee = closures[stack[--sp]];
+                    } else {
+                        callee = closures[globals[code[pc]]];
+                        argc = code[pc + 1];
+                        pc += 2;
+                    }
+                    if (depth == maxDepth) throw new RuntimeException("stack depth exceeded (" + maxDepth + " nested calls)");
+                    // save the caller
+                    if (depth == frameProto.length) growFrames();
+                    frameProto[depth] = proto;
+                    framePc[depth] = pc;
+                    frameFp[depth] = fp;
+                    depth++;
+                    // args are already in place as the first locals
+                    proto = callee.proto;
+                    code = proto.code;
+                    fp = sp - argc;
+                    sp = fp + proto.frameSize;
+                    if (sp + proto.maxStack > stack.length) stack = ensureStack(stack, sp + proto.maxStack);
+                    locals = stack;
+                    base = fp;
+                    pc = 0;
+                    break;
+                }
+                case Opcode.RETURN: {
+                    int value = stack[sp - 1];
+                    sp = fp;
+                    stack[sp++] = value;
+                    depth--;
+                    proto = frameProto[depth];
+                    code = proto.code;
+                    pc = framePc[depth];
+                    fp = frameFp[depth];
+                    locals = depth == 0 ? globals : stack;
+                    base = depth == 0 ? 0 : fp;
+                    break;
+                }
+                case Opcode.FAIL:
+                    throw new RuntimeException((String) proto.consts[code[pc]]);
+                case Opcode.HALT:
+                    return sp > 0 ? stack[sp - 1] : 0;
+                default:
+                    throw new IllegalStateException("Bad opcode at " + (pc - 1) + " in " + proto.name);
+            }
+        }
+    }
+}
@@ -32,7 +32,7 @@ public class parser extends java_cup.runtime.lr_parser {
   /** Production table. */
   protected static final short _production_table[][] = 
     unpackFromStrings(new String[] {
-    "\000\054\000\002\003\003\000\002\002\004\000\002\003" +
+    "\000\057\000\002\003\003\000\002\002\004\000\002\003" +
     "\003\000\002\003\003\000\002\003\003\000\002\002\005" +
     "\000\002\004\004\000\002\004\002\000\002\005\010\000" +
     "\002\006\005\000\002\006\003\000\002\006\002\000\002" +
@@ -42,10 +42,11 @@ public class parser extends java_cup.runtime.lr_parser {
     "\002\014\003\000\002\014\003\000\002\014\003\000\002" +
     "\007\004\000\002\007\002\000\002\016\005\000\002\016" +
     "\005\000\002\016\005\000\002\016\005\000\002\016\005" +
-    "\000\002\016\005\000\002\016\005\000\002\016\003\000" +
-    "\002\017\003\000\002\017\003\000\002\017\003\000\002" +
-    "\017\003\000\002\017\006\000\002\017\005\000\002\015" +
-    "\005\000\002\015\003\000\002\015\002" });
+    "\000\002\016\005\000\002\016\005\000\002\016\005\000" +
+    "\002\016\005\000\002\016\004\000\002\016\003\000\002" +
+    "\017\003\000\002\017\003\000\002\017\003\000\002\017" +
+    "\003\000\002\017\006\000\002\017\005\000\002\015\005" +
+    "\000\002\015\003\000\002\015\002" });
 
   /** Access to production table. */
   public short[][] production_table() {return _production_table;}
@@ -53,102 +54,122 @@ public class parser extends java_cup.runtime.lr_parser {
   /** Parse-action table. */
   protected static final short[][] _action_table = 
     unpackFromStrings(new String[] {
-    "\000\115\000\034\004\010\006\007\022\006\023\021\024" +
-    "\016\026\012\027\013\030\015\031\024\032\022\033\030" +
-    "\034\014\035\023\001\002\000\004\002\uffff\001\002\000" +
-    "\022\002\ufffd\013\045\014\047\015\051\016\053\017\054" +
-    "\020\046\021\052\001\002\000\004\034\uffeb\001\002\000" +
-    "\024\006\uffed\007\uffed\022\uffed\023\uffed\024\uffed\026\uffed" +
-    "\027\uffed\033\uffed\034\uffed\001\002\000\014\004\010\030" +
-    "\015\031\024\034\043\035\023\001\002\000\004\034\107" +
-    "\001\002\000\004\004\103\001\002\000\014\004\010\030" +
-    "\015\031\024\034\043\035\023\001\002\000\026\002\uffdb" +
-    "\004\064\012\042\013\uffdb\014\uffdb\015\uffdb\016\uffdb\017" +
-    "\uffdb\020\uffdb\021\uffdb\001\002\000\030\002\uffdd\005\uffdd" +
-    "\010\uffdd\011\uffdd\013\uffdd\014\uffdd\015\uffdd\016\uffdd\017" +
-    "\uffdd\020\uffdd\021\uffdd\001\002\000\004\004\073\001\002" +
-    "\000\022\002\ufff5\006\ufff5\007\ufff5\024\ufff5\025\ufff5\026" +
-    "\ufff5\027\ufff5\034\ufff5\001\002\000\030\002\uffdf\005\uffdf" +
-    "\010\uffdf\011\uffdf\013\uffdf\014\uffdf\015\uffdf\016\uffdf\017" +
-    "\uffdf\020\uffdf\021\uffdf\001\002\000\004\034\uffea\001\002" +
-    "\000\004\034\032\001\002\000\030\002\uffde\005\uffde\010" +
-    "\uffde\011\uffde\013\uffde\014\uffde\015\uffde\016\uffde\017\uffde" +
-    "\020\uffde\021\uffde\001\002\000\030\002\uffdc\005\uffdc\010" +
-    "\uffdc\011\uffdc\013\uffdc\014\uffdc\015\uffdc\016\uffdc\017\uffdc" +
-    "\020\uffdc\021\uffdc\001\002\000\004\002\001\001\002\000" +
-    "\004\002\ufffe\001\002\000\004\002\031\001\002\000\004" +
-    "\034\uffe9\001\002\000\004\002\000\001\002\000\004\004" +
-    "\033\001\002\000\014\005\ufff6\010\ufff6\022\006\023\021" +
-    "\033\030\001\002\000\006\005\037\010\036\001\002\000" +
-    "\006\005\ufff7\010\ufff7\001\002\000\010\022\006\023\021" +
-    "\033\030\001\002\000\014\006\007\024\016\026\012\027" +
-    "\013\034\040\001\002\000\004\012\042\001\002\000\004" +
-    "\002\ufff9\001\002\000\014\004\010\030\015\031\024\034" +
-    "\043\035\023\001\002\000\032\002\uffdb\004\064\005\uffdb" +
-    "\010\uffdb\011\uffdb\013\uffdb\014\uffdb\015\uffdb\016\uffdb\017" +
-    "\uffdb\020\uffdb\021\uffdb\001\002\000\022\011\050\013\045" +
-    "\014\047\015\051\016\053\017\054\020\046\021\052\001" +
-    "\002\000\014\004\010\030\015\031\024\034\043\035\023" +
-    "\001\002\000\014\004\010\030\015\031\024\034\043\035" +
-    "\023\001\002\000\014\004\010\030\015\031\024\034\043" +
-    "\035\023\001\002\000\022\002\ufff4\006\ufff4\007\ufff4\024" +
-    "\ufff4\025\ufff4\026\ufff4\027\ufff4\034\ufff4\001\002\000\014" +
-    "\004\010\030\015\031\024\034\043\035\023\001\002\000" +
-    "\014\004\010\030\015\031\024\034\043\035\023\001\002" +
-    "\000\014\004\010\030\015\031\024\034\043\035\023\001" +
-    "\002\000\014\004\010\030\015\031\024\034\043\035\023" +
-    "\001\002\000\030\002\uffe5\005\uffe5\010\uffe5\011\uffe5\013" +
-    "\uffe5\014\uffe5\015\uffe5\016\uffe5\017\uffe5\020\046\021\052" +
-    "\001\002\000\030\002\uffe6\005\uffe6\010\uffe6\011\uffe6\013" +
-    "\uffe6\014\uffe6\015\uffe6\016\uffe6\017\uffe6\020\046\021\052" +
-    "\001\002\000\030\002\uffe3\005\uffe3\010\uffe3\011\uffe3\013" +
-    "\uffe3\014\uffe3\015\uffe3\016\uffe3\017\uffe3\020\uffe3\021\uffe3" +
-    "\001\002\000\030\002\uffe0\005\uffe0\010\uffe0\011\uffe0\013" +
-    "\uffe0\014\uffe0\015\uffe0\016\053\017\054\020\046\021\052" +
-    "\001\002\000\030\002\uffe1\005\uffe1\010\uffe1\011\uffe1\013" +
-    "\uffe1\014\uffe1\015\uffe1\016\053\017\054\020\046\021\052" +
-    "\001\002\000\030\002\uffe4\005\uffe4\010\uffe4\011\uffe4\013" +
-    "\uffe4\014\uffe4\015\uffe4\016\uffe4\017\uffe4\020\uffe4\021\uffe4" +
-    "\001\002\000\030\002\uffe2\005\uffe2\010\uffe2\011\uffe2\013" +
-    "\uffe2\014\047\015\051\016\053\017\054\020\046\021\052" +
-    "\001\002\000\020\004\010\005\uffd6\010\uffd6\030\015\031" +
-    "\024\034\043\035\023\001\002\000\006\005\070\010\067" +
-    "\001\002\000\024\005\uffd7\010\uffd7\013\045\014\047\015" +
-    "\051\016\053\017\054\020\046\021\052\001\002\000\014" +
-    "\004\010\030\015\031\024\034\043\035\023\001\002\000" +
-    "\030\002\uffda\005\uffda\010\uffda\011\uffda\013\uffda\014\uffda" +
-    "\015\uffda\016\uffda\017\uffda\020\uffda\021\uffda\001\002\000" +
-    "\024\005\uffd8\010\uffd8\013\045\014\047\015\051\016\053" +
-    "\017\054\020\046\021\052\001\002\000\006\005\ufff8\010" +
-    "\ufff8\001\002\000\014\004\010\030\015\031\024\034\043" +
-    "\035\023\001\002\000\022\005\075\013\045\014\047\015" +
-    "\051\016\053\017\054\020\046\021\052\001\002\000\014" +
-    "\006\007\024\016\026\012\027\013\034\040\001\002\000" +
-    "\022\002\ufff2\006\ufff2\007\ufff2\024\ufff2\025\077\026\ufff2" +
-    "\027\ufff2\034\ufff2\001\002\000\014\006\007\024\016\026" +
-    "\012\027\013\034\040\001\002\000\022\002\ufff3\006\ufff3" +
-    "\007\ufff3\024\ufff3\025\ufff3\026\ufff3\027\ufff3\034\ufff3\001" +
-    "\002\000\022\011\102\013\045\014\047\015\051\016\053" +
-    "\017\054\020\046\021\052\001\002\000\022\002\ufff0\006" +
-    "\ufff0\007\ufff0\024\ufff0\025\ufff0\026\ufff0\027\ufff0\034\ufff0" +
-    "\001\002\000\014\004\010\030\015\031\024\034\043\035" +
-    "\023\001\002\000\022\005\105\013\045\014\047\015\051" +
-    "\016\053\017\054\020\046\021\052\001\002\000\014\006" +
-    "\007\024\016\026\012\027\013\034\040\001\002\000\022" +
-    "\002\ufff1\006\ufff1\007\ufff1\024\ufff1\025\ufff1\026\ufff1\027" +
-    "\ufff1\034\ufff1\001\002\000\012\002\uffec\005\uffec\010\uffec" +
-    "\011\uffec\001\002\000\022\005\111\013\045\014\047\015" +
-    "\051\016\053\017\054\020\046\021\052\001\002\000\030" +
-    "\002\uffd9\005\uffd9\010\uffd9\011\uffd9\013\uffd9\014\uffd9\015" +
-    "\uffd9\016\uffd9\017\uffd9\020\uffd9\021\uffd9\001\002\000\024" +
-    "\006\uffe7\007\uffe7\022\006\023\021\024\uffe7\026\uffe7\027" +
-    "\uffe7\033\030\034\uffe7\001\002\000\016\006\007\007\116" +
-    "\024\016\026\012\027\013\034\040\001\002\000\004\011" +
-    "\115\001\002\000\024\006\uffee\007\uffee\022\uffee\023\uffee" +
-    "\024\uffee\026\uffee\027\uffee\033\uffee\034\uffee\001\002\000" +
-    "\022\002\uffef\006\uffef\007\uffef\024\uffef\025\uffef\026\uffef" +
-    "\027\uffef\034\uffef\001\002\000\016\006\uffe8\007\uffe8\024" +
-    "\uffe8\026\uffe8\027\uffe8\034\uffe8\001\002" });
+    "\000\123\000\036\004\010\006\007\024\013\025\006\026" +
+    "\022\027\017\031\012\032\014\033\016\034\025\035\023" +
+    "\036\031\037\015\040\024\001\002\000\004\002\uffff\001" +
+    "\002\000\026\002\ufffd\013\053\014\056\015\054\016\052" +
+    "\017\046\020\051\021\050\022\047\023\057\001\002\000" +
+    "\004\037\uffeb\001\002\000\024\006\uffed\007\uffed\025\uffed" +
+    "\026\uffed\027\uffed\031\uffed\032\uffed\036\uffed\037\uffed\001" +
+    "\002\000\016\004\010\024\013\033\016\034\025\037\044" +
+    "\040\024\001\002\000\004\037\115\001\002\000\004\004" +
+    "\111\001\002\000\016\004\010\024\013\033\016\034\025" +
+    "\037\044\040\024\001\002\000\016\004\010\024\013\033" +
+    "\016\034\025\037\044\040\024\001\002\000\032\002\uffd8" +
+    "\004\071\012\043\013\uffd8\014\uffd8\015\uffd8\016\uffd8\017" +
+    "\uffd8\020\uffd8\021\uffd8\022\uffd8\023\uffd8\001\002\000\034" +
+    "\002\uffda\005\uffda\010\uffda\011\uffda\013\uffda\014\uffda\015" +
+    "\uffda\016\uffda\017\uffda\020\uffda\021\uffda\022\uffda\023\uffda" +
+    "\001\002\000\004\004\100\001\002\000\022\002\ufff5\006" +
+    "\ufff5\007\ufff5\027\ufff5\030\ufff5\031\ufff5\032\ufff5\037\ufff5" +
+    "\001\002\000\034\002\uffdc\005\uffdc\010\uffdc\011\uffdc\013" +
+    "\uffdc\014\uffdc\015\uffdc\016\uffdc\017\uffdc\020\uffdc\021\uffdc" +
+    "\022\uffdc\023\uffdc\001\002\000\004\037\uffea\001\002\000" +
+    "\004\037\033\001\002\000\034\002\uffdb\005\uffdb\010\uffdb" +
+    "\011\uffdb\013\uffdb\014\uffdb\015\uffdb\016\uffdb\017\uffdb\020" +
+    "\uffdb\021\uffdb\022\uffdb\023\uffdb\001\002\000\034\002\uffd9" +
+    "\005\uffd9\010\uffd9\011\uffd9\013\uffd9\014\uffd9\015\uffd9\016" +
+    "\uffd9\017\uffd9\020\uffd9\021\uffd9\022\uffd9\023\uffd9\001\002" +
+    "\000\004\002\001\001\002\000\004\002\ufffe\001\002\000" +
+    "\004\002\032\001\002\000\004\037\uffe9\001\002\000\004" +
+    "\002\000\001\002\000\004\004\034\001\002\000\014\005" +
+    "\ufff6\010\ufff6\025\006\026\022\036\031\001\002\000\006" +
+    "\005\040\010\037\001\002\000\006\005\ufff7\010\ufff7\001" +
+    "\002\000\010\025\006\026\022\036\031\001\002\000\014" +
+    "\006\007\027\017\031\012\032\014\037\041\001\002\000" +
+    "\004\012\043\001\002\000\004\002\ufff9\001\002\000\016" +
+    "\004\010\024\013\033\016\034\025\037\044\040\024\001" +
+    "\002\000\036\002\uffd8\004\071\005\uffd8\010\uffd8\011\uffd8" +
+    "\013\uffd8\014\uffd8\015\uffd8\016\uffd8\017\uffd8\020\uffd8\021" +
+    "\uffd8\022\uffd8\023\uffd8\001\002\000\026\011\055\013\053" +
+    "\014\056\015\054\016\052\017\046\020\051\021\050\022" +
+    "\047\023\057\001\002\000\016\004\010\024\013\033\016" +
+    "\034\025\037\044\040\024\001\002\000\016\004\010\024" +
+    "\013\033\016\034\025\037\044\040\024\001\002\000\016" +
+    "\004\010\024\013\033\016\034\025\037\044\040\024\001" +
+    "\002\000\016\004\010\024\013\033\016\034\025\037\044" +
+    "\040\024\001\002\000\016\004\010\024\013\033\016\034" +
+    "\025\037\044\040\024\001\002\000\016\004\010\024\013" +
+    "\033\016\034\025\037\044\040\024\001\002\000\016\004" +
+    "\010\024\013\033\016\034\025\037\044\040\024\001\002" +
+    "\000\022\002\ufff4\006\ufff4\007\ufff4\027\ufff4\030\ufff4\031" +
+    "\ufff4\032\ufff4\037\ufff4\001\002\000\016\004\010\024\013" +
+    "\033\016\034\025\037\044\040\024\001\002\000\016\004" +
+    "\010\024\013\033\016\034\025\037\044\040\024\001\002" +
+    "\000\034\002\uffde\005\uffde\010\uffde\011\uffde\013\053\014" +
+    "\056\015\054\016\052\017\046\020\051\021\050\022\047" +
+    "\023\uffde\001\002\000\034\002\uffe1\005\uffe1\010\uffe1\011" +
+    "\uffe1\013\uffe1\014\uffe1\015\uffe1\016\052\017\046\020\051" +
+    "\021\050\022\uffe1\023\uffe1\001\002\000\034\002\uffe0\005" +
+    "\uffe0\010\uffe0\011\uffe0\013\uffe0\014\uffe0\015\uffe0\016\052" +
+    "\017\046\020\051\021\050\022\uffe0\023\uffe0\001\002\000" +
+    "\034\002\uffe2\005\uffe2\010\uffe2\011\uffe2\013\uffe2\014\056" +
+    "\015\054\016\052\017\046\020\051\021\050\022\uffe2\023" +
+    "\uffe2\001\002\000\034\002\uffe6\005\uffe6\010\uffe6\011\uffe6" +
+    "\013\uffe6\014\uffe6\015\uffe6\016\uffe6\017\uffe6\020\051\021" +
+    "\050\022\uffe6\023\uffe6\001\002\000\034\002\uffe4\005\uffe4" +
+    "\010\uffe4\011\uffe4\013\uffe4\014\uffe4\015\uffe4\016\uffe4\017" +
+    "\uffe4\020\uffe4\021\uffe4\022\uffe4\023\uffe4\001\002\000\034" +
+    "\002\uffe3\005\uffe3\010\uffe3\011\uffe3\013\uffe3\014\uffe3\015" +
+    "\uffe3\016\uffe3\017\uffe3\020\uffe3\021\uffe3\022\uffe3\023\uffe3" +
+    "\001\002\000\034\002\uffdf\005\uffdf\010\uffdf\011\uffdf\013" +
+    "\053\014\056\015\054\016\052\017\046\020\051\021\050" +
+    "\022\uffdf\023\uffdf\001\002\000\034\002\uffe5\005\uffe5\010" +
+    "\uffe5\011\uffe5\013\uffe5\014\uffe5\015\uffe5\016\uffe5\017\uffe5" +
+    "\020\051\021\050\022\uffe5\023\uffe5\001\002\000\022\004" +
+    "\010\005\uffd3\010\uffd3\024\013\033\016\034\025\037\044" +
+    "\040\024\001\002\000\006\005\075\010\074\001\002\000" +
+    "\030\005\uffd4\010\uffd4\013\053\014\056\015\054\016\052" +
+    "\017\046\020\051\021\050\022\047\023\057\001\002\000" +
+    "\016\004\010\024\013\033\016\034\025\037\044\040\024" +
+    "\001\002\000\034\002\uffd7\005\uffd7\010\uffd7\011\uffd7\013" +
+    "\uffd7\014\uffd7\015\uffd7\016\uffd7\017\uffd7\020\uffd7\021\uffd7" +
+    "\022\uffd7\023\uffd7\001\002\000\030\005\uffd5\010\uffd5\013" +
+    "\053\014\056\015\054\016\052\017\046\020\051\021\050" +
+    "\022\047\023\057\001\002\000\006\005\ufff8\010\ufff8\001" +
+    "\002\000\016\004\010\024\013\033\016\034\025\037\044" +
+    "\040\024\001\002\000\026\005\102\013\053\014\056\015" +
+    "\054\016\052\017\046\020\051\021\050\022\047\023\057" +
+    "\001\002\000\014\006\007\027\017\031\012\032\014\037" +
+    "\041\001\002\000\022\002\ufff2\006\ufff2\007\ufff2\027\ufff2" +
+    "\030\104\031\ufff2\032\ufff2\037\ufff2\001\002\000\014\006" +
+    "\007\027\017\031\012\032\014\037\041\001\002\000\022" +
+    "\002\ufff3\006\ufff3\007\ufff3\027\ufff3\030\ufff3\031\ufff3\032" +
+    "\ufff3\037\ufff3\001\002\000\026\011\107\013\053\014\056" +
+    "\015\054\016\052\017\046\020\051\021\050\022\047\023" +
+    "\057\001\002\000\022\002\ufff0\006\ufff0\007\ufff0\027\ufff0" +
+    "\030\ufff0\031\ufff0\032\ufff0\037\ufff0\001\002\000\034\002" +
+    "\uffdd\005\uffdd\010\uffdd\011\uffdd\013\uffdd\014\uffdd\015\uffdd" +
+    "\016\uffdd\017\uffdd\020\uffdd\021\uffdd\022\uffdd\023\uffdd\001" +
+    "\002\000\016\004\010\024\013\033\016\034\025\037\044" +
+    "\040\024\001\002\000\026\005\113\013\053\014\056\015" +
+    "\054\016\052\017\046\020\051\021\050\022\047\023\057" +
+    "\001\002\000\014\006\007\027\017\031\012\032\014\037" +
+    "\041\001\002\000\022\002\ufff1\006\ufff1\007\ufff1\027\ufff1" +
+    "\030\ufff1\031\ufff1\032\ufff1\037\ufff1\001\002\000\012\002" +
+    "\uffec\005\uffec\010\uffec\011\uffec\001\002\000\026\005\117" +
+    "\013\053\014\056\015\054\016\052\017\046\020\051\021" +
+    "\050\022\047\023\057\001\002\000\034\002\uffd6\005\uffd6" +
+    "\010\uffd6\011\uffd6\013\uffd6\014\uffd6\015\uffd6\016\uffd6\017" +
+    "\uffd6\020\uffd6\021\uffd6\022\uffd6\023\uffd6\001\002\000\024" +
+    "\006\uffe7\007\uffe7\025\006\026\022\027\uffe7\031\uffe7\032" +
+    "\uffe7\036\031\037\uffe7\001\002\000\016\006\007\007\124" +
+    "\027\017\031\012\032\014\037\041\001\002\000\004\011" +
+    "\123\001\002\000\024\006\uffee\007\uffee\025\uffee\026\uffee" +
+    "\027\uffee\031\uffee\032\uffee\036\uffee\037\uffee\001\002\000" +
+    "\022\002\uffef\006\uffef\007\uffef\027\uffef\030\uffef\031\uffef" +
+    "\032\uffef\037\uffef\001\002\000\016\006\uffe8\007\uffe8\027" +
+    "\uffe8\031\uffe8\032\uffe8\037\uffe8\001\002" });
 
   /** Access to parse-action table. */
   public short[][] action_table() {return _action_table;}
@@ -156,39 +177,42 @@ public class parser extends java_cup.runtime.lr_parser {
   /** <code>reduce_goto</code> table. */
   protected static final short[][] _reduce_table = 
     unpackFromStrings(new String[] {
-    "\000\115\000\022\003\026\005\024\010\025\011\016\013" +
-    "\003\014\010\016\004\017\017\001\001\000\002\001\001" +
-    "\000\002\001\001\000\002\001\001\000\004\012\111\001" +
-    "\001\000\006\016\107\017\017\001\001\000\002\001\001" +
-    "\000\002\001\001\000\006\016\100\017\017\001\001\000" +
-    "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\000\123\000\022\003\027\005\025\010\026\011\017\013" +
+    "\003\014\010\016\004\017\020\001\001\000\002\001\001" +
+    "\000\002\001\001\000\002\001\001\000\004\012\117\001" +
+    "\001\000\006\016\115\017\020\001\001\000\002\001\001" +
+    "\000\002\001\001\000\006\016\107\017\020\001\001\000" +
+    "\006\016\105\017\020\001\001\000\002\001\001\000\002" +
     "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
     "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
     "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\002\001\001\000\010\006\033\013\034" +
-    "\014\010\001\001\000\002\001\001\000\002\001\001\000" +
-    "\006\013\071\014\010\001\001\000\006\010\040\011\016" +
-    "\001\001\000\002\001\001\000\002\001\001\000\006\016" +
-    "\043\017\017\001\001\000\002\001\001\000\002\001\001" +
-    "\000\006\016\062\017\017\001\001\000\006\016\061\017" +
-    "\017\001\001\000\006\016\060\017\017\001\001\000\002" +
-    "\001\001\000\006\016\057\017\017\001\001\000\006\016" +
-    "\056\017\017\001\001\000\006\016\055\017\017\001\001" +
-    "\000\006\016\054\017\017\001\001\000\002\001\001\000" +
     "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
-    "\001\001\000\002\001\001\000\002\001\001\000\010\015" +
-    "\064\016\065\017\017\001\001\000\002\001\001\000\002" +
-    "\001\001\000\006\016\070\017\017\001\001\000\002\001" +
-    "\001\000\002\001\001\000\002\001\001\000\006\016\073" +
-    "\017\017\001\001\000\002\001\001\000\006\010\075\011" +
-    "\016\001\001\000\002\001\001\000\006\010\077\011\016" +
-    "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
-    "\001\000\006\016\103\017\017\001\001\000\002\001\001" +
-    "\000\006\010\105\011\016\001\001\000\002\001\001\000" +
-    "\002\001\001\000\002\001\001\000\002\001\001\000\010" +
-    "\007\112\013\113\014\010\001\001\000\006\010\116\011" +
-    "\016\001\001\000\002\001\001\000\002\001\001\000\002" +
-    "\001\001\000\002\001\001" });
+    "\001\001\000\010\006\034\013\035\014\010\001\001\000" +
+    "\002\001\001\000\002\001\001\000\006\013\076\014\010" +
+    "\001\001\000\006\010\041\011\017\001\001\000\002\001" +
+    "\001\000\002\001\001\000\006\016\044\017\020\001\001" +
+    "\000\002\001\001\000\002\001\001\000\006\016\067\017" +
+    "\020\001\001\000\006\016\066\017\020\001\001\000\006" +
+    "\016\065\017\020\001\001\000\006\016\064\017\020\001" +
+    "\001\000\006\016\063\017\020\001\001\000\006\016\062" +
+    "\017\020\001\001\000\006\016\061\017\020\001\001\000" +
+    "\002\001\001\000\006\016\060\017\020\001\001\000\006" +
+    "\016\057\017\020\001\001\000\002\001\001\000\002\001" +
+    "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001\000\010\015\071\016\072\017\020\001\001" +
+    "\000\002\001\001\000\002\001\001\000\006\016\075\017" +
+    "\020\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\001\001\000\006\016\100\017\020\001\001\000\002\001" +
+    "\001\000\006\010\102\011\017\001\001\000\002\001\001" +
+    "\000\006\010\104\011\017\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\002\001\001\000\006" +
+    "\016\111\017\020\001\001\000\002\001\001\000\006\010" +
+    "\113\011\017\001\001\000\002\001\001\000\002\001\001" +
+    "\000\002\001\001\000\002\001\001\000\010\007\120\013" +
+    "\121\014\010\001\001\000\006\010\124\011\017\001\001" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001" });
 
   /** Access to <code>reduce_goto</code> table. */
   public short[][] reduce_table() {return _reduce_table;}
@@ -710,7 +734,49 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 34: // expr ::= simple_expr 
+          case 34: // expr ::= expr AND expr 
+            {
+              Expr RESULT =null;
+		int e1left = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
+		int e1right = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).right;
+		Expr e1 = (Expr)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-2)).value;
+		int e2left = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).left;
+		int e2right = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).right;
+		Expr e2 = (Expr)((java_cup.runtime.Symbol) CUP$parser$stack.peek()).value;
+		 RESULT = new BinaryExpr(e1, Operator.AND, e2); 
+              CUP$parser$result = parser.getSymbolFactory().newSymbol("expr",12, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)), ((java_cup.runtime.Symbol)CUP$parser$stack.peek()), RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 35: // expr ::= expr OR expr 
+            {
+              Expr RESULT =null;
+		int e1left = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
+		int e1right = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).right;
+		Expr e1 = (Expr)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-2)).value;
+		int e2left = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).left;
+		int e2right = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).right;
+		Expr e2 = (Expr)((java_cup.runtime.Symbol) CUP$parser$stack.peek()).value;
+		 RESULT = new BinaryExpr(e1, Operator.OR, e2); 
+              CUP$parser$result = parser.getSymbolFactory().newSymbol("expr",12, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)), ((java_cup.runtime.Symbol)CUP$parser$stack.peek()), RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 36: // expr ::= NOT expr 
+            {
+              Expr RESULT =null;
+		int eleft = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).left;
+		int eright = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).right;
+		Expr e = (Expr)((java_cup.runtime.Symbol) CUP$parser$stack.peek()).value;
+		 RESULT = new BinaryExpr(e, Operator.EQ, new BoolLiteral(false)); 
+              CUP$parser$result = parser.getSymbolFactory().newSymbol("expr",12, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)), ((java_cup.runtime.Symbol)CUP$parser$stack.peek()), RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 37: // expr ::= simple_expr 
             {
               Expr RESULT =null;
 		int seleft = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).left;
@@ -722,7 +788,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 35: // simple_expr ::= INTEGER_LIT 
+          case 38: // simple_expr ::= INTEGER_LIT 
             {
               Expr RESULT =null;
 		int ileft = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).left;
@@ -734,7 +800,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 36: // simple_expr ::= TRUE 
+          case 39: // simple_expr ::= TRUE 
             {
               Expr RESULT =null;
 		 RESULT = new BoolLiteral(true); 
@@ -743,7 +809,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 37: // simple_expr ::= FALSE 
+          case 40: // simple_expr ::= FALSE 
             {
               Expr RESULT =null;
 		 RESULT = new BoolLiteral(false); 
@@ -752,7 +818,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 38: // simple_expr ::= IDENTIFIER 
+          case 41: // simple_expr ::= IDENTIFIER 
             {
               Expr RESULT =null;
 		int idleft = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).left;
@@ -764,7 +830,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 39: // simple_expr ::= IDENTIFIER LEFT_PAREN args RIGHT_PAREN 
+          case 42: // simple_expr ::= IDENTIFIER LEFT_PAREN args RIGHT_PAREN 
             {
               Expr RESULT =null;
 		int nameleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left;
@@ -779,7 +845,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 40: // simple_expr ::= LEFT_PAREN expr RIGHT_PAREN 
+          case 43: // simple_expr ::= LEFT_PAREN expr RIGHT_PAREN 
             {
               Expr RESULT =null;
 		int eleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -791,7 +857,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 41: // args ::= args COMMA expr 
+          case 44: // args ::= args COMMA expr 
             {
               List<Expr> RESULT =null;
 		int listleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -806,7 +872,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 42: // args ::= expr 
+          case 45: // args ::= expr 
             {
               List<Expr> RESULT =null;
 		int eleft = ((java_cup.runtime.Symbol)CUP$parser$stack.peek()).left;
@@ -818,7 +884,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 43: // args ::= 
+          case 46: // args ::= 
             {
               List<Expr> RESULT =null;
 		 RESULT = new ArrayList<Expr>(); 